@@ -0,0 +1,429 @@
+package data;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Cette classe contient, pour une map, la table des positions perdues face à un seul fantome qui n'a pas peur.
+ * Un état est (case de Pacman, case du fantome, direction du fantome), Pacman devant jouer.
+ * Les règles sont celles de BeliefState : Pacman se déplace (ou reste sur place s'il avance dans un mur),
+ * puis le fantome poursuit Pacman s'il le voyait avant son déplacement, sinon il choisit l'une des directions
+ * autorisées (jamais de demi-tour, sauf au fond d'une impasse), ici de la pire des manières pour Pacman.
+ * La table est calculée hors ligne par analyse rétrograde (couche k : Pacman est pris en au plus k tours
+ * quoi qu'il fasse) et enregistrée compressée à côté de la map, dans doc/mapN.danger (un octet par état).
+ * Le fichier commence par un en-tête (nombre de cases praticables et somme de contrôle des murs) vérifié avant
+ * d'allouer la table, et se termine par la somme de contrôle de la table.
+ * La table a nbrOpen² * 4 états : au-delà de MAX_STATES (une map de plus de 4096 cases praticables),
+ * elle n'est ni calculée ni chargée.
+ *
+ * Usage : java data.DangerTablebase 1 2 3
+ *
+ * @inv depth.length == nbrOpen * nbrOpen * 4
+ */
+public class DangerTablebase {
+
+	/** Valeur de probe lorsque Pacman peut toujours échapper au fantome */
+	public static final int SAFE = 0;
+	/** Nombre maximal de tours enregistré (un octet par état) */
+	public static final int MAX_DEPTH = 255;
+	/** Nombre maximal d'états d'une table, soit 64 Mo */
+	public static final long MAX_STATES = 1L << 26;
+	private static final int MAGIC = 0x50414442;
+	private static final int VERSION = 2;
+	private static final int[] ROW_STEP = {-1, 1, 0, 0};
+	private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+	private static final String DIRECTIONS = "UDLR";
+
+	private int rows;
+	private int columns;
+	/** Indice de chaque case praticable parmi les cases praticables, -1 pour un mur */
+	private int[] openIndex;
+	/** Case (ligne * nbColonnes + colonne) de chaque indice */
+	private int[] openCell;
+	private int nbrOpen;
+	/** Nombre de tours avant la capture forcée, SAFE sinon ; indexé par (pacman * nbrOpen + fantome) * 4 + direction */
+	private byte[] depth;
+	/** Vrai si au moins un état est perdu */
+	private boolean lost;
+
+	/**
+	 * Prépare les cases d'une map, sans allouer la table (voir allocate)
+	 *
+	 * @param map le contenu des cases ('#' pour un mur)
+	 */
+	private DangerTablebase(char[][] map) {
+		this.rows = map.length;
+		this.columns = map[0].length;
+		this.openIndex = new int[this.rows * this.columns];
+		ArrayList<Integer> open = new ArrayList<Integer>();
+		for(int i = 0; i < this.rows; i++) {
+			for(int j = 0; j < this.columns; j++) {
+				if(map[i][j] == '#') {
+					this.openIndex[i * this.columns + j] = -1;
+				}
+				else {
+					this.openIndex[i * this.columns + j] = open.size();
+					open.add(i * this.columns + j);
+				}
+			}
+		}
+		this.nbrOpen = open.size();
+		this.openCell = new int[this.nbrOpen];
+		for(int k = 0; k < this.nbrOpen; k++) {
+			this.openCell[k] = open.get(k);
+		}
+	}
+
+	/**
+	 * Retourne le nombre d'états de la table d'une map
+	 *
+	 * @param nbrOpen le nombre de cases praticables
+	 * @return le nombre d'états, calculé sans dépassement
+	 */
+	public static long stateCount(int nbrOpen) {
+		return (long)nbrOpen * nbrOpen * 4;
+	}
+
+	/**
+	 * Alloue la table vide
+	 *
+	 * @throws IllegalStateException si la table dépasse MAX_STATES états
+	 */
+	private void allocate() {
+		long states = DangerTablebase.stateCount(this.nbrOpen);
+		if(states > MAX_STATES) {
+			throw new IllegalStateException("Table de danger trop grande : " + states + " états pour " + this.nbrOpen + " cases praticables (au plus " + MAX_STATES + ")");
+		}
+		this.depth = new byte[(int)states];
+	}
+
+	/**
+	 * Calcule la somme de contrôle des murs de la map
+	 *
+	 * @return la somme de contrôle des cases praticables
+	 */
+	private long mapChecksum() {
+		CRC32 crc = new CRC32();
+		for(int cell : this.openCell) {
+			crc.update(cell >>> 24);
+			crc.update(cell >>> 16);
+			crc.update(cell >>> 8);
+			crc.update(cell);
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Calcule la somme de contrôle de la table
+	 *
+	 * @return la somme de contrôle des états
+	 */
+	private long depthChecksum() {
+		CRC32 crc = new CRC32();
+		crc.update(this.depth);
+		return crc.getValue();
+	}
+
+	/**
+	 * Calcule la table d'une map par analyse rétrograde
+	 *
+	 * @param map le contenu des cases ('#' pour un mur)
+	 * @return la table de la map
+	 * @throws IllegalStateException si la table dépasse MAX_STATES états
+	 */
+	public static DangerTablebase build(char[][] map) {
+		DangerTablebase table = new DangerTablebase(map);
+		table.allocate();
+		int[] pacmanMoves = new int[5];
+		int[] ghostMoves = new int[4];
+		int[] ghostDirections = new int[4];
+		boolean changed = true;
+		for(int layer = 1; layer <= MAX_DEPTH && changed; layer++) {
+			changed = false;
+			for(int pacman = 0; pacman < table.nbrOpen; pacman++) {
+				int nbrPacmanMoves = table.pacmanMoves(table.openCell[pacman], pacmanMoves);
+				for(int ghost = 0; ghost < table.nbrOpen; ghost++) {
+					if(ghost == pacman) {
+						continue;
+					}
+					for(int direction = 0; direction < 4; direction++) {
+						int state = (pacman * table.nbrOpen + ghost) * 4 + direction;
+						if(table.depth[state] != 0) {
+							continue;
+						}
+						// perdu si chaque déplacement de Pacman mène à la capture ou à un état perdu d'une couche précédente
+						boolean lost = true;
+						for(int m = 0; m < nbrPacmanMoves && lost; m++) {
+							lost = table.moveLost(pacmanMoves[m], table.openCell[pacman], table.openCell[ghost], direction, layer, ghostMoves, ghostDirections);
+						}
+						if(lost) {
+							table.depth[state] = (byte)layer;
+							table.lost = true;
+							changed = true;
+						}
+					}
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Vérifie si le fantome peut prendre Pacman après un déplacement de Pacman
+	 *
+	 * @return vrai si le fantome capture Pacman ce tour-ci ou atteint un état perdu en moins de layer tours
+	 */
+	private boolean moveLost(int pacmanTo, int pacmanFrom, int ghost, int direction, int layer, int[] ghostMoves, int[] ghostDirections) {
+		if(pacmanTo == ghost) {
+			return true;
+		}
+		int nbrGhostMoves = this.ghostMoves(ghost, direction, pacmanFrom, ghostMoves, ghostDirections);
+		for(int g = 0; g < nbrGhostMoves; g++) {
+			if(ghostMoves[g] == pacmanTo) {
+				return true;
+			}
+			int next = (this.openIndex[pacmanTo] * this.nbrOpen + this.openIndex[ghostMoves[g]]) * 4 + ghostDirections[g];
+			int nextDepth = this.depth[next] & 0xFF;
+			if(nextDepth != 0 && nextDepth < layer) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Liste les cases où Pacman peut se trouver après son déplacement
+	 *
+	 * @return le nombre de cases
+	 */
+	private int pacmanMoves(int cell, int[] moves) {
+		int nbr = 0;
+		boolean blocked = false;
+		for(int d = 0; d < 4; d++) {
+			int next = this.neighbor(cell, d);
+			if(next >= 0) {
+				moves[nbr++] = next;
+			}
+			else {
+				blocked = true;
+			}
+		}
+		if(blocked) {
+			moves[nbr++] = cell;
+		}
+		return nbr;
+	}
+
+	/**
+	 * Liste les déplacements possibles du fantome, comme BeliefState.extendsBeliefState
+	 *
+	 * @param pacman la case de Pacman avant son déplacement (celle que voit le fantome)
+	 * @return le nombre de déplacements
+	 */
+	private int ghostMoves(int ghost, int direction, int pacman, int[] moves, int[] directions) {
+		int i = ghost / this.columns, j = ghost % this.columns;
+		int pi = pacman / this.columns, pj = pacman % this.columns;
+		if(this.isVisible(i, j, pi, pj)) {
+			int d = i > pi ? 0 : (i < pi ? 1 : (j < pj ? 3 : 2));
+			moves[0] = this.neighbor(ghost, d);
+			directions[0] = d;
+			return 1;
+		}
+		int reverse = direction ^ 1;
+		int first = direction < 2 ? 2 : 0;
+		boolean lateral = this.neighbor(ghost, first) >= 0 || this.neighbor(ghost, first + 1) >= 0;
+		int nbr = 0;
+		if(lateral || this.neighbor(ghost, direction) < 0) {
+			for(int d = 0; d < 4; d++) {
+				int next = this.neighbor(ghost, d);
+				if(next >= 0 && (d != reverse || !lateral)) {
+					moves[nbr] = next;
+					directions[nbr++] = d;
+				}
+			}
+		}
+		else {
+			moves[nbr] = this.neighbor(ghost, direction);
+			directions[nbr++] = direction;
+		}
+		return nbr;
+	}
+
+	/**
+	 * Deux cases se voient si elles sont sur la même ligne ou la même colonne sans mur entre elles
+	 */
+	private boolean isVisible(int i1, int j1, int i2, int j2) {
+		if(i1 != i2 && j1 != j2) {
+			return false;
+		}
+		int di = Integer.signum(i2 - i1), dj = Integer.signum(j2 - j1);
+		for(int i = i1, j = j1; i != i2 || j != j2; i += di, j += dj) {
+			if(this.openIndex[i * this.columns + j] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int neighbor(int cell, int d) {
+		int i = cell / this.columns + ROW_STEP[d];
+		int j = cell % this.columns + COLUMN_STEP[d];
+		if(i < 0 || i >= this.rows || j < 0 || j >= this.columns || this.openIndex[i * this.columns + j] < 0) {
+			return -1;
+		}
+		return i * this.columns + j;
+	}
+
+	/**
+	 * Indique si la table contient au moins une position perdue
+	 *
+	 * @return faux si Pacman peut toujours échapper au fantome, auquel cas probe rend toujours SAFE
+	 */
+	public boolean hasLostState() {
+		return this.lost;
+	}
+
+	/**
+	 * Consulte la table
+	 *
+	 * @param pacmanRow ligne de Pacman
+	 * @param pacmanColumn colonne de Pacman
+	 * @param ghostRow ligne du fantome
+	 * @param ghostColumn colonne du fantome
+	 * @param ghostDirection direction du fantome ('U', 'D', 'L' ou 'R')
+	 * @return le nombre de tours avant que le fantome ne prenne forcément Pacman, SAFE si Pacman peut lui échapper
+	 */
+	public int probe(int pacmanRow, int pacmanColumn, int ghostRow, int ghostColumn, char ghostDirection) {
+		int pacman = this.openIndex[pacmanRow * this.columns + pacmanColumn];
+		int ghost = this.openIndex[ghostRow * this.columns + ghostColumn];
+		int direction = DIRECTIONS.indexOf(ghostDirection);
+		if(pacman < 0 || ghost < 0 || direction < 0) {
+			return SAFE;
+		}
+		return this.depth[(pacman * this.nbrOpen + ghost) * 4 + direction] & 0xFF;
+	}
+
+	/**
+	 * Enregistre la table dans un fichier
+	 *
+	 * @param file le fichier de la table
+	 * @throws IOException si l'écriture échoue
+	 */
+	public void save(String file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file))));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(this.rows);
+			out.writeInt(this.columns);
+			out.writeInt(this.nbrOpen);
+			out.writeLong(this.mapChecksum());
+			out.write(this.depth);
+			out.writeLong(this.depthChecksum());
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Charge la table d'une map si elle a été calculée
+	 *
+	 * @param file le fichier de la table
+	 * @param map le contenu des cases de la map correspondante
+	 * @return la table, null si le fichier n'existe pas, ne correspond pas à la map, est trop grand ou abîmé
+	 */
+	public static DangerTablebase load(String file, char[][] map) {
+		if(!new File(file).exists()) {
+			return null;
+		}
+		DangerTablebase table = new DangerTablebase(map);
+		try {
+			DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+			try {
+				if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+					System.out.println("Table de danger ignorée (format différent, à recalculer) : " + file);
+					return null;
+				}
+				if(in.readInt() != table.rows || in.readInt() != table.columns || in.readInt() != table.nbrOpen || in.readLong() != table.mapChecksum()) {
+					System.out.println("Table de danger ignorée (map différente) : " + file);
+					return null;
+				}
+				if(DangerTablebase.stateCount(table.nbrOpen) > MAX_STATES) {
+					System.out.println("Table de danger ignorée (plus de " + MAX_STATES + " états) : " + file);
+					return null;
+				}
+				table.allocate();
+				in.readFully(table.depth);
+				if(in.readLong() != table.depthChecksum()) {
+					System.out.println("Table de danger ignorée (somme de contrôle fausse) : " + file);
+					return null;
+				}
+				for(byte b : table.depth) {
+					table.lost |= b != 0;
+				}
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException exception) {
+			System.out.println("Erreur lors de la lecture de la table de danger : " + exception.getMessage());
+			return null;
+		}
+		return table;
+	}
+
+	/**
+	 * Lit les murs d'un fichier .map (la première ligne contient les paramètres)
+	 *
+	 * @param file le fichier .map
+	 * @return le contenu des cases
+	 * @throws IOException si la lecture échoue
+	 */
+	private static char[][] readMap(String file) throws IOException {
+		BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+		ArrayList<char[]> lines = new ArrayList<char[]>();
+		try {
+			br.readLine();
+			String ligne;
+			while((ligne = br.readLine()) != null) {
+				if(!ligne.isEmpty()) {
+					lines.add(ligne.toCharArray());
+				}
+			}
+		}
+		finally {
+			br.close();
+		}
+		return lines.toArray(new char[lines.size()][]);
+	}
+
+	/**
+	 * Calcule et enregistre les tables des maps passées en paramètre (numéros), par défaut 1, 2 et 3
+	 *
+	 * @param args les numéros des maps
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			args = new String[] {"1", "2", "3"};
+		}
+		for(String number : args) {
+			long elapsedTime = System.currentTimeMillis();
+			DangerTablebase table = DangerTablebase.build(DangerTablebase.readMap("./doc/map" + number + ".map"));
+			table.save("./doc/map" + number + ".danger");
+			int lost = 0, longest = 0;
+			for(byte b : table.depth) {
+				if(b != 0) {
+					lost++;
+					longest = Math.max(longest, b & 0xFF);
+				}
+			}
+			System.out.println("map" + number + " : " + table.depth.length + " états, " + lost + " perdus (au plus " + longest + " tours), "
+					+ (System.currentTimeMillis() - elapsedTime) + " ms");
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package data;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/**
+ * Cette classe lit un fichier .map et décrit un niveau case par case, sans aucune figure :
+ * elle suffit à la simulation (logic.GameEngine), l'affichage construit ses figures à partir d'elle (data.Map).
+ * La map peut être rectangulaire (largeur et hauteur indépendantes). Les cases praticables sont numérotées de 0 à
+ * getNbrCells() - 1 dans l'ordre des lignes : les états du jeu indexent leurs tableaux par ce numéro, si bien que leur
+ * taille ne dépend que du nombre de cases praticables. La visibilité est donnée par les segments de couloir : deux
+ * cases se voient si elles sont dans le même segment horizontal ou vertical.
+ *
+ * @inv 0 < rows <= MAX_SIZE && 0 < columns <= MAX_SIZE
+ */
+public class Level {
+
+	/** Le nombre maximal de lignes et de colonnes d'une map */
+	public static final int MAX_SIZE = 512;
+
+	/** Le numéro de la map */
+	private int mapNumber;
+	/** Le nom du fichier .map */
+	private String mapFile;
+	/** Le nombre de lignes de la map */
+	private int rows;
+	/** Le nombre de colonnes de la map */
+	private int columns;
+	/** La couleur des mur de la map */
+	private String couleurMur;
+	/** Le contenu initial de chaque case, avec les symboles du fichier .map */
+	private char[][] grid;
+	/** La ligne de départ de pacman */
+	private int pacmanRow;
+	/** La colonne de départ de pacman */
+	private int pacmanColumn;
+	/** La case de départ de chaque fantôme : une liste de couple (ligne, colonne) */
+	private ArrayList<int[]> ghosts;
+	/** Les cases qui ne sont pas des murs : une liste de couple (ligne, colonne), dans l'ordre de leur numéro */
+	private ArrayList<int[]> gamePositions;
+	/** Le numéro de chaque case praticable, indexé par ligne * columns + colonne, -1 pour un mur */
+	private int[] cellIndex;
+	/** Les voisins de chaque case praticable dans l'ordre haut, bas, gauche, droite : neighbors[4 * case + direction], -1 pour un mur */
+	private int[] neighbors;
+	/** Le segment horizontal de chaque case praticable (cases de la même ligne sans mur entre elles) */
+	private int[] rowSegment;
+	/** Le segment vertical de chaque case praticable (cases de la même colonne sans mur entre elles) */
+	private int[] columnSegment;
+	/** Le nombre de gomme (et super-gomme) au début du niveau */
+	private int nbrGomme;
+	/** La topologie du labyrinthe (sorties, culs-de-sac, carrefours, points d'articulation) */
+	private MazeTopology topology;
+	/** La table des positions perdues face à un fantome (null si doc/mapN.danger n'a pas été calculé) */
+	private DangerTablebase tablebase;
+
+	/**
+	 * Lit le niveau d'un numéro de map
+	 *
+	 * @param mapNumber le numéro de la map a charger (doc/mapN.map)
+	 * @pre mapNumber > 0
+	 */
+	public Level(int mapNumber) {
+		this("./doc/map" + mapNumber + ".map");
+		this.mapNumber = mapNumber;
+	}
+
+	/**
+	 * Lit le niveau d'un fichier .map
+	 *
+	 * @param mapFile le fichier .map
+	 */
+	public Level(String mapFile) {
+		this.mapFile = mapFile;
+		this.ghosts = new ArrayList<int[]>();
+		this.gamePositions = new ArrayList<int[]>();
+		this.readMap();
+		this.indexCells();
+		this.topology = new MazeTopology(this.grid);
+		this.tablebase = DangerTablebase.load(this.mapFile.replace(".map", ".danger"), this.grid);
+		this.invariant();
+	}
+
+	/*******************************************************************
+  La première ligne contient les parametre nbColonnes;couleur du mur;nbLignes
+  (nbLignes peut être omis pour une map carrée)
+                      # = un mur
+                      . = une gomme
+	 * = une super-gomme
+                      O = un chemin vide
+                      P = PacMan
+                      F = fantome
+	 *******************************************************************/
+
+	/**
+	 * Lit le fichier .map
+	 *
+	 * @throws IllegalArgumentException si la première ligne est invalide ou si la map dépasse MAX_SIZE cases de côté
+	 * @throws UncheckedIOException si le fichier ne peut pas être lu
+	 * @post nbrGomme > 0
+	 */
+	private void readMap() {
+		try {
+			BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(this.mapFile)));
+			try {
+				this.readHeader(br.readLine());
+				this.grid = new char[this.rows][this.columns];
+				for(char[] row : this.grid) {
+					Arrays.fill(row, '#');
+				}
+				String ligne;
+				for(int i = 0; i < this.rows && (ligne = br.readLine()) != null; i++) {
+					for(int j = 0; j < this.columns && j < ligne.length(); j++) {
+						char c = ligne.charAt(j);
+						this.grid[i][j] = c;
+						switch(c) {
+						case '.' :
+						case '*' :
+							this.nbrGomme += 1;
+							break;
+						case 'P' :
+							this.pacmanRow = i;
+							this.pacmanColumn = j;
+							break;
+						case 'F' :
+							this.ghosts.add(new int[] {i, j});
+							break;
+						}
+						if(c != '#') {
+							this.gamePositions.add(new int[] {i, j});
+						}
+					}
+				}
+			}
+			finally {
+				br.close();
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("map " + this.mapFile + " unreadable", e);
+		}
+		assert nbrGomme > 0 : "Post condition non respectée : nombre de gomme nul";
+	}
+
+	/**
+	 * Lit la première ligne du fichier .map (nbColonnes;couleur du mur;nbLignes), avant d'allouer la grille
+	 *
+	 * @param line la première ligne, null si le fichier est vide
+	 * @throws IllegalArgumentException si la ligne est invalide ou si la map dépasse MAX_SIZE cases de côté
+	 */
+	private void readHeader(String line) {
+		String[] param = line == null ? new String[0] : line.split(";");
+		if(param.length < 2)
+			throw new IllegalArgumentException("map " + this.mapFile + ": header \"" + line + "\" is not columns;color[;rows]");
+		try {
+			this.columns = Integer.parseInt(param[0].trim());
+			this.rows = param.length > 2 && !param[2].trim().isEmpty() ? Integer.parseInt(param[2].trim()) : this.columns;
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("map " + this.mapFile + ": header \"" + line + "\" is not columns;color[;rows]", e);
+		}
+		this.couleurMur = param[1];
+		if(this.rows <= 0 || this.columns <= 0 || this.rows > MAX_SIZE || this.columns > MAX_SIZE)
+			throw new IllegalArgumentException("map " + this.mapFile + " of " + this.rows + "x" + this.columns + " squares, at most " + MAX_SIZE + " per side");
+	}
+
+	/**
+	 * Numérote les cases praticables, puis calcule leurs voisins et leurs segments de couloir
+	 */
+	private void indexCells() {
+		int nbrCells = this.gamePositions.size();
+		this.cellIndex = new int[this.rows * this.columns];
+		Arrays.fill(this.cellIndex, -1);
+		for(int k = 0; k < nbrCells; k++) {
+			int[] position = this.gamePositions.get(k);
+			this.cellIndex[position[0] * this.columns + position[1]] = k;
+		}
+		this.neighbors = new int[4 * nbrCells];
+		this.rowSegment = new int[nbrCells];
+		this.columnSegment = new int[nbrCells];
+		int segments = 0;
+		for(int k = 0; k < nbrCells; k++) {
+			int i = this.gamePositions.get(k)[0], j = this.gamePositions.get(k)[1];
+			int up = this.getCellIndex(i - 1, j), left = this.getCellIndex(i, j - 1);
+			this.neighbors[4 * k] = up;
+			this.neighbors[4 * k + 1] = this.getCellIndex(i + 1, j);
+			this.neighbors[4 * k + 2] = left;
+			this.neighbors[4 * k + 3] = this.getCellIndex(i, j + 1);
+			// une case continue le segment de sa voisine de gauche (ou du haut), sinon elle en commence un
+			this.rowSegment[k] = left >= 0 ? this.rowSegment[left] : segments++;
+			this.columnSegment[k] = up >= 0 ? this.columnSegment[up] : segments++;
+		}
+	}
+
+	/**
+	 * Vérifie si deux cases se voient (même ligne ou même colonne, sans mur entre elles)
+	 *
+	 * @return vrai si les deux cases se voient
+	 */
+	public boolean isVisible(int row1, int column1, int row2, int column2) {
+		int cell1 = this.getCellIndex(row1, column1), cell2 = this.getCellIndex(row2, column2);
+		if(cell1 < 0 || cell2 < 0) {
+			return false;
+		}
+		if(row1 == row2) {
+			return this.rowSegment[cell1] == this.rowSegment[cell2];
+		}
+		if(column1 == column2) {
+			return this.columnSegment[cell1] == this.columnSegment[cell2];
+		}
+		return false;
+	}
+
+	/**
+	 * Donne le numéro d'une case praticable
+	 *
+	 * @param i la ligne de la case
+	 * @param j la colonne de la case
+	 * @return le numéro de la case, -1 pour un mur ou une case hors de la map
+	 */
+	public int getCellIndex(int i, int j) {
+		if(i < 0 || i >= this.rows || j < 0 || j >= this.columns) {
+			return -1;
+		}
+		return this.cellIndex[i * this.columns + j];
+	}
+
+	/**
+	 * Vérifie si une case est un mur
+	 *
+	 * @return vrai pour un mur ou une case hors de la map
+	 */
+	public boolean isWall(int i, int j) {
+		return this.getCellIndex(i, j) < 0;
+	}
+
+	/**
+	 * Donne le voisin d'une case praticable
+	 *
+	 * @param cell le numéro de la case
+	 * @param direction la direction (MazeTopology.UP, DOWN, LEFT ou RIGHT)
+	 * @return le numéro du voisin, -1 si c'est un mur
+	 */
+	public int getNeighbor(int cell, int direction) {
+		return this.neighbors[4 * cell + direction];
+	}
+
+	/**
+	 * Getter pour le nombre de cases praticables
+	 *
+	 * @return le nombre de cases qui ne sont pas des murs
+	 */
+	public int getNbrCells() {
+		return this.gamePositions.size();
+	}
+
+	/**
+	 * Getter pour le numéro de la map
+	 *
+	 * @return le numéro de la map, 0 si le niveau a été lu d'un autre fichier
+	 */
+	public int getMapNumber() {
+		return this.mapNumber;
+	}
+
+	/**
+	 * Getter pour le fichier de la map
+	 *
+	 * @return le nom du fichier .map
+	 */
+	public String getMapFile() {
+		return this.mapFile;
+	}
+
+	/**
+	 * Getter pour le nombre de lignes de la map
+	 *
+	 * @return Le nombre de lignes
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Getter pour le nombre de colonnes de la map
+	 *
+	 * @return Le nombre de colonnes
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Getter pour la couleur des murs
+	 *
+	 * @return la couleur des murs
+	 */
+	public String getCouleurMur() {
+		return this.couleurMur;
+	}
+
+	/**
+	 * Getter pour le contenu initial des cases (à ne pas modifier)
+	 *
+	 * @return le contenu des cases
+	 */
+	public char[][] getGrid() {
+		return this.grid;
+	}
+
+	/**
+	 * Getter pour la ligne de départ de pacman
+	 *
+	 * @return la ligne de départ de pacman
+	 */
+	public int getPacmanRow() {
+		return this.pacmanRow;
+	}
+
+	/**
+	 * Getter pour la colonne de départ de pacman
+	 *
+	 * @return la colonne de départ de pacman
+	 */
+	public int getPacmanColumn() {
+		return this.pacmanColumn;
+	}
+
+	/**
+	 * Getter pour les cases de départ des fantomes
+	 *
+	 * @return La liste des cases (ligne, colonne)
+	 */
+	public ArrayList<int[]> getGhosts() {
+		return this.ghosts;
+	}
+
+	/**
+	 * Getter pour les cases qui ne sont pas des murs
+	 *
+	 * @return La liste des cases (ligne, colonne), la case k est la case praticable numéro k
+	 */
+	public ArrayList<int[]> getGamePositions() {
+		return this.gamePositions;
+	}
+
+	/**
+	 * Getter pour le nombre de gomme au début du niveau
+	 *
+	 * @return Le nombre de gomme
+	 */
+	public int getNbGom() {
+		return this.nbrGomme;
+	}
+
+	/**
+	 * Getter pour la topologie du labyrinthe, calculée au chargement
+	 *
+	 * @return la topologie du labyrinthe
+	 */
+	public MazeTopology getTopology() {
+		return this.topology;
+	}
+
+	/**
+	 * Getter pour la table des positions perdues face à un fantome
+	 *
+	 * @return la table, null si elle n'a pas été calculée pour cette map
+	 */
+	public DangerTablebase getTablebase() {
+		return this.tablebase;
+	}
+
+	protected void invariant() {
+		assert this.rows > 0 && this.columns > 0 && this.rows <= MAX_SIZE && this.columns <= MAX_SIZE : "Invariant violé : taille de la map";
+	}
+
+}
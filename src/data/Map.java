@@ -1,17 +1,11 @@
 package data;
-import java.io.*;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
 
-import logic.PacManLauncher;
-import logic.Pacman;
-import logic.BeliefState;
 import view.*;
 
 
 /**
- * Cette classe permet, à partir d'un fichier .map, de créer toutes les figures d'un niveau
+ * Cette classe permet, à partir d'un niveau (data.Level), de créer toutes les figures de ce niveau
  *
  * @author RGM
  * @version 03/03/2014
@@ -20,218 +14,116 @@ import view.*;
  */
 public class Map {
 
-	/** Le nombre de case de la map */
-	private int nbCases;
-	/** La taille de chacune des cases */
+	/** Le niveau affiché */
+	private Level level;
+	/** Le nombre de lignes de la map */
+	private int rows;
+	/** Le nombre de colonnes de la map */
+	private int columns;
+	/** La taille de chacune des cases, en pixels (au moins 1) */
 	private int tailleCase;
 	/** La position en X de pacman */
 	private int pacmanX;
 	/** La position en Y de pacman */
 	private int pacmanY;
-	/** Taille de la fenêtre */
+	/** Taille minimale de la fenêtre */
 	private final int WIDTH = Canvas.WIDTH;
+	private final int HEIGHT = Canvas.HEIGHT;
 	/** Tableau à deux dimension de figure contenant toute les figures de la map case par case */
 	private MapGenerate theMap;
 	/** La couleur des mur de la map */
 	private String couleurMur;
-	/** Le nom du fichier .map */
-	private String mapFile;
-	/** Le nombre de gomme présent sur la map */
-	private int nbrGomme;
 	/** La position sur la map de chaque fantôme en début de niveau : Un liste de couple (x,y) */
 	private ArrayList<int[]> ghosts;
-	/** Paires cases visibles */
-	private HashSet<String> visible;
-	private PacManLauncher pml;
-	private BeliefState state;
-	private ArrayList<BeliefState> visibleBeliefState;
-	private ArrayList<int[]> gamePositions;
 
 	/**
-	 * Constructeur de la classe Map, il creer un niveau du jeu a partir d'un fichier
+	 * Constructeur de la classe Map, il creer les figures d'un niveau du jeu
 	 *
-	 * @param mapName le numéro de la map a charger
-	 * @pre mapNumber > 0
+	 * @param level le niveau a afficher
 	 */
-	public Map(int mapNumber, PacManLauncher pml) {
-		this.pml = pml;
-		assert mapNumber > 0 : "Precondition non respectée : numéro de la map négatif";
-		this.mapFile = "./doc/map"+ mapNumber +".map";
-		this.nbrGomme = 0;
+	public Map(Level level) {
+		this.level = level;
 		this.ghosts = new ArrayList<int[]>();
-		this.visibleBeliefState = new ArrayList<BeliefState>();
-		this.gamePositions = new ArrayList<int[]>();
 		this.createMap();
 		this.invariant();
 	}
 
-	/*******************************************************************
-  Un fichier map.txt définira un niveau de jeu
-  La première ligne contient les parametre nbCase, couleur du mur ...
-                      # = un mur
-                      . = une gomme
-	 * = une super-gomme
-                      O = un chemin vide
-                      P = PacMan
-                      F = fantome
-	 *******************************************************************/
-
 	/**
-	 * Cette fonction est appellée par le constructeur afin de lire le fichier .map et d'initialiser tout les parametres
+	 * Cette fonction est appellée par le constructeur afin de créer une figure par case du niveau.
+	 * Les cases sont carrées et la map tient dans la fenêtre de 500 pixels ; au-delà de 500 cases de côté,
+	 * les cases font 1 pixel et la fenêtre est agrandie à la taille de la map (voir getWidth, getHeight).
 	 *
-	 * @post nbrGomme > 0
 	 * @post pacmanX > 0
 	 * @post pacmanY > 0
-	 * @post couleurMur == "blue" || couleurMur == "green" || couleurMur == "pink"
 	 */
 	private void createMap(){
-		try{
-			// Ouverture du fichier pour la lecture
-			InputStream ips=new FileInputStream(this.mapFile);
-			InputStreamReader ipsr=new InputStreamReader(ips);
-			BufferedReader br=new BufferedReader(ipsr);
-
-			boolean firstLine = true;        // La premiere ligne contient des parametres spéciaux
-			String ligne;                    // La ligne suivante à lire
-			int i = 0;                       // La ligne de la map
- 
-			
-			// On lit toute les lignes du fichier
-			while ((ligne=br.readLine())!=null){
-				//Traitement spéciale pour la première ligne
-				if(firstLine) {
-					firstLine = false;
-					String[] param = ligne.split(";");
-					this.nbCases = Integer.parseInt(param[0]);
-					this.tailleCase = this.WIDTH / this.nbCases;
-					this.couleurMur = param[1];
-					this.theMap = new MapGenerate(this.nbCases);
-					this.visible = new HashSet<String>();
-					this.state = new BeliefState(this.nbCases, this.pml.getPacman() != null? this.pml.getPacman().getScore(): 0, this.pml.getPacman() != null? this.pml.getPacman().getLife(): Pacman.LIFE_START);
-				}
-				else {
-					int j = 0;                   // La colonne de la map
-					int tmpx = 0;                // Variable utilisée pour stocké la position en x d'une figure
-					int tmpy = 0;                // Variable utilisée pour stocké la position en y d'une figure
-					int[] posGhost = null;
-
-					String[] param = ligne.split("");
-					for (String str : param) {
-						tmpx = j*this.tailleCase;  // Calcule de la position de la figure
-						tmpy = i*this.tailleCase;  // Calcule de la postion de la figure
-						// Voir description des symboles ci-dessus
-						switch (str) {
-						case "#" :
-							this.theMap.setFigure(i,j,new Wall(this.tailleCase, tmpx, tmpy, this.couleurMur));
-							break;
-						case "." :
-							this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy, false));
-							this.nbrGomme += 1;
-							this.visible.add(i+","+j+";"+i+","+j);
-							for(int k = i - 1; k > -1 && this.visible.contains(k+","+j+";"+(i-1)+","+j); k--) {
-								this.visible.add(k+","+j+";"+i+","+j);
-							}
-							for(int k = j - 1; k > -1 && this.visible.contains(i+","+k+";"+i+","+(j-1)); k--) {
-								this.visible.add(i+","+k+";"+i+","+j);
-							}
-							int [] pos1 = {i,j};
-							this.gamePositions.add(pos1);
-							break;
-						case "*" :
-							this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy, true));
-							this.nbrGomme += 1;
-							this.visible.add(i+","+j+";"+i+","+j);
-							for(int k = i - 1; k > -1 && this.visible.contains(k+","+j+";"+(i-1)+","+j); k--) {
-								this.visible.add(k+","+j+";"+i+","+j);
-							}
-							for(int k = j - 1; k > -1 && this.visible.contains(i+","+k+";"+i+","+(j-1)); k--) {
-								this.visible.add(i+","+k+";"+i+","+j);
-							}
-							int [] pos2 = {i,j};
-							this.gamePositions.add(pos2);
-							break;
-						case "O" :
-							this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy));
-							this.visible.add(i+","+j+";"+i+","+j);
-							for(int k = i - 1; k > -1 && this.visible.contains(k+","+j+";"+(i-1)+","+j); k--) {
-								this.visible.add(k+","+j+";"+i+","+j);
-							}
-							for(int k = j - 1; k > -1 && this.visible.contains(i+","+k+";"+i+","+(j-1)); k--) {
-								this.visible.add(i+","+k+";"+i+","+j);
-							}
-							int [] pos3 = {i,j};
-							this.gamePositions.add(pos3);
-							break;
-						case "P" :
-							this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy));
-							this.pacmanX = tmpx;
-							this.pacmanY = tmpy;
-							this.visible.add(i+","+j+";"+i+","+j);
-							for(int k = i - 1; k > -1 && this.visible.contains(k+","+j+";"+(i-1)+","+j); k--) {
-								this.visible.add(k+","+j+";"+i+","+j);
-							}
-							for(int k = j - 1; k > -1 && this.visible.contains(i+","+k+";"+i+","+(j-1)); k--) {
-								this.visible.add(i+","+k+";"+i+","+j);
-							}
-							int [] pos4 = {i,j};
-							this.gamePositions.add(pos4);
-							break;
-						case "F" :
-							this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy));
-							posGhost = new int[2];
-							posGhost[0] = tmpx;
-							posGhost[1] = tmpy;
-							this.ghosts.add(posGhost);
-							this.visible.add(i+","+j+";"+i+","+j);
-							for(int k = i - 1; k > -1 && this.visible.contains(k+","+j+";"+(i-1)+","+j); k--) {
-								this.visible.add(k+","+j+";"+i+","+j);
-							}
-							for(int k = j - 1; k > -1 && this.visible.contains(i+","+k+";"+i+","+(j-1)); k--) {
-								this.visible.add(i+","+k+";"+i+","+j);
-							}
-							int [] pos5 = {i,j};
-							this.gamePositions.add(pos5);
-							break;
-						}
-						this.state.modifyMap(i, j, str.charAt(0));
-						j++;
-					}
-					i++;
+		this.rows = this.level.getRows();
+		this.columns = this.level.getColumns();
+		this.tailleCase = Math.max(1, Math.min(this.WIDTH / this.columns, this.HEIGHT / this.rows));
+		this.couleurMur = this.level.getCouleurMur();
+		this.theMap = new MapGenerate(this.rows, this.columns);
+		char[][] grid = this.level.getGrid();
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				int tmpx = j*this.tailleCase;  // Calcule de la position de la figure
+				int tmpy = i*this.tailleCase;  // Calcule de la postion de la figure
+				switch (grid[i][j]) {
+				case '#' :
+					this.theMap.setFigure(i,j,new Wall(this.tailleCase, tmpx, tmpy, this.couleurMur));
+					break;
+				case '.' :
+					this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy, false));
+					break;
+				case '*' :
+					this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy, true));
+					break;
+				case 'O' :
+					this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy));
+					break;
+				case 'P' :
+					this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy));
+					this.pacmanX = tmpx;
+					this.pacmanY = tmpy;
+					break;
+				case 'F' :
+					this.theMap.setFigure(i,j,new Gomme(this.tailleCase, tmpx, tmpy));
+					this.ghosts.add(new int[] {tmpx, tmpy});
+					break;
 				}
 			}
-			br.close();
-		}
-		catch (Exception e){
-			System.out.println(e.toString());
 		}
-		assert nbrGomme > 0 : "Post condition non respectée : nombre de gomme nul";
 		assert pacmanX > 0 : "Post condition non respectée : pacman non initialisé";
 		assert pacmanY > 0 : "Post condition non respectée : pacman non initialisé";
-		assert couleurMur == "blue" || couleurMur == "green" || couleurMur == "pink" : "Post condition non respectée : Mauvaise couleur de mur";
-
 		this.invariant();
-		BeliefState.setStaticVariables(this.gamePositions, this.visible, this.pacmanX, this.pacmanY, this.ghosts, this.tailleCase, this.nbCases);
-		this.visibleBeliefState.add(new BeliefState(this.state, false));
-	}
-	
-	public ArrayList<int[]> getGamePosition() {
-		return this.gamePositions;
 	}
 
 	/**
-	 * Decremente le nombre de gomme
+	 * Enlève la gomme dessinée sur une case
+	 *
+	 * @param i la ligne de la case
+	 * @param j la colonne de la case
+	 * @return vrai si la case avait une gomme
 	 */
-	public void pickGom () {
-		this.nbrGomme -= 1;
+	public boolean pickGom (int i, int j) {
+		Figure f = this.theMap.getTheMap()[i][j];
+		if (f instanceof Gomme) {
+			Gomme tmp = (Gomme)f;
+			if (tmp.getGomme() != null) {
+				tmp.setGomme(null);//plus de gomme
+				tmp.draw();
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
-	 * Getter pour le nombre courrant de gomme
+	 * Getter pour le niveau affiché
 	 *
-	 * @return Le nombre de gomme
+	 * @return le niveau
 	 */
-	public int getNbGom () {
-		return this.nbrGomme;
+	public Level getLevel () {
+		return this.level;
 	}
 
 	/**
@@ -248,12 +140,21 @@ public class Map {
 	}
 
 	/**
-	 * Getter pour le nombre de cases de la map
+	 * Getter pour le nombre de lignes de la map
+	 *
+	 * @return Le nombre de lignes
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Getter pour le nombre de colonnes de la map
 	 *
-	 * @return Le nombre de case
+	 * @return Le nombre de colonnes
 	 */
-	public int getNbCases() {
-		return this.nbCases;
+	public int getColumns() {
+		return this.columns;
 	}
 
 	/**
@@ -265,6 +166,24 @@ public class Map {
 		return this.tailleCase;
 	}
 
+	/**
+	 * Getter pour la largeur de la map
+	 *
+	 * @return La largeur de la map en pixels
+	 */
+	public int getWidth() {
+		return this.columns * this.tailleCase;
+	}
+
+	/**
+	 * Getter pour la hauteur de la map
+	 *
+	 * @return La hauteur de la map en pixels
+	 */
+	public int getHeight() {
+		return this.rows * this.tailleCase;
+	}
+
 	/**
 	 * Getter pour la position en X de pacman sur la map
 	 *
@@ -298,44 +217,7 @@ public class Map {
 	}
 	
 	public boolean isVisible(int row1, int column1, int row2, int column2) {
-		//System.out.println("isVisible " + row1 + "," + column1 + ";" + row2 + "," + column2);
-		if(row1 == row2) {
-			//System.out.println("row " + row1 + " columns " + column1 + "," + column2);
-			return this.visible.contains(row1+","+Math.min(column1,column2)+";"+row2+","+Math.max(column1, column2));
-		}
-		if(column1 == column2) {
-			//System.out.println("column " + column1 + " rows " + row1 + "," + row2);
-			return this.visible.contains(Math.min(row1, row2)+","+column1+";"+Math.max(row1, row2)+","+column2);
-		}
-		return false;
-	}
-	
-	public PacManLauncher getPml() {
-		return this.pml;
-	}
-	
-	public BeliefState getBeliefState() {
-		return this.state;
-	}
-	
-	public void setBeliefState(BeliefState state) {
-		this.state = state;
-	}
-	
-	public ArrayList<BeliefState> getVisibleBeliefState() {
-		return this.visibleBeliefState;
-	}
-	
-	public void setVisibleBeliefState(ArrayList<BeliefState> visibleBeliefState) {
-		this.visibleBeliefState = visibleBeliefState;
-	}
-	
-	public BeliefState getState() {
-		return this.state;
-	}
-	
-	public ArrayList<BeliefState> getVisibleState(){
-		return this.visibleBeliefState;
+		return this.level.isVisible(row1, column1, row2, column2);
 	}
 
 }
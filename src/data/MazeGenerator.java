@@ -0,0 +1,287 @@
+package data;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import logic.Options;
+
+/**
+ * Cette classe génère des labyrinthes aléatoires au format .map, pour tester le jeu sur des niveaux plus grands que
+ * les niveaux de doc/. Les cases aux coordonnées impaires forment une grille de cellules ; un arbre couvrant aléatoire
+ * (algorithme de Prim) relie une partie de ces cellules, puis des murs entre cellules voisines sont ouverts pour créer
+ * des boucles. Pacman est placé au hasard, les fantômes sur les cases les plus éloignées de lui, les super-gommes de
+ * préférence dans les culs-de-sac et toutes les autres cases praticables reçoivent une gomme.
+ * La même graine et les mêmes paramètres donnent toujours le même labyrinthe.
+ *
+ * Usage : java data.MazeGenerator --output FICHIER [--size 50 | --rows 50 --columns 50] [--density 1.0]
+ *                                 [--loops 0.15] [--ghosts 2] [--super 4] [--color blue] [--seed 1]
+ *
+ * @inv rows >= 7 && columns >= 7 && rows <= Level.MAX_SIZE && columns <= Level.MAX_SIZE
+ */
+public class MazeGenerator {
+
+	private static final int[] ROW_STEP = {-1, 1, 0, 0};
+	private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+
+	/** Le nombre de lignes de la map */
+	private int rows;
+	/** Le nombre de colonnes de la map */
+	private int columns;
+	/** La part des cellules reliées au labyrinthe, entre 0 et 1 (le reste est plein) */
+	private double density;
+	/** La probabilité d'ouvrir un mur entre deux cellules du labyrinthe qui ne sont pas reliées */
+	private double loopRatio;
+	/** Le nombre de fantômes */
+	private int ghosts;
+	/** Le nombre de super-gommes */
+	private int superGums;
+	/** La graine du hasard */
+	private long seed;
+
+	/**
+	 * Crée un générateur de labyrinthes carrés
+	 *
+	 * @param size le nombre de case de la map (largeur = hauteur)
+	 * @param density la part des cellules reliées au labyrinthe, entre 0 et 1
+	 * @param loopRatio la probabilité d'ouvrir un mur entre deux cellules non reliées, 0 pour un labyrinthe sans boucle
+	 * @param ghosts le nombre de fantômes
+	 * @param superGums le nombre de super-gommes
+	 * @param seed la graine du hasard
+	 * @pre 7 <= size <= Level.MAX_SIZE
+	 */
+	public MazeGenerator(int size, double density, double loopRatio, int ghosts, int superGums, long seed) {
+		this(size, size, density, loopRatio, ghosts, superGums, seed);
+	}
+
+	/**
+	 * Crée un générateur
+	 *
+	 * @param rows le nombre de lignes de la map
+	 * @param columns le nombre de colonnes de la map
+	 * @param density la part des cellules reliées au labyrinthe, entre 0 et 1
+	 * @param loopRatio la probabilité d'ouvrir un mur entre deux cellules non reliées, 0 pour un labyrinthe sans boucle
+	 * @param ghosts le nombre de fantômes
+	 * @param superGums le nombre de super-gommes
+	 * @param seed la graine du hasard
+	 * @pre 7 <= rows <= Level.MAX_SIZE && 7 <= columns <= Level.MAX_SIZE
+	 */
+	public MazeGenerator(int rows, int columns, double density, double loopRatio, int ghosts, int superGums, long seed) {
+		if(rows < 7 || columns < 7)
+			throw new IllegalArgumentException("a maze has at least 7 squares per side");
+		if(rows > Level.MAX_SIZE || columns > Level.MAX_SIZE)
+			throw new IllegalArgumentException("a maze has at most " + Level.MAX_SIZE + " squares per side");
+		if(density <= 0 || density > 1 || loopRatio < 0 || loopRatio > 1 || ghosts < 0 || superGums < 0)
+			throw new IllegalArgumentException("invalid maze parameters");
+		this.rows = rows;
+		this.columns = columns;
+		this.density = density;
+		this.loopRatio = loopRatio;
+		this.ghosts = ghosts;
+		this.superGums = superGums;
+		this.seed = seed;
+	}
+
+	/**
+	 * Génère le labyrinthe
+	 *
+	 * @return le contenu de chaque case, avec les symboles du fichier .map
+	 * @post il y a exactement une case 'P' et au moins une gomme, toutes les cases praticables sont reliées
+	 */
+	public char[][] generate() {
+		Random random = new Random(this.seed);
+		char[][] grid = new char[this.rows][this.columns];
+		for(char[] row : grid) {
+			Arrays.fill(row, '#');
+		}
+		this.carve(grid, random);
+		ArrayList<int[]> open = new ArrayList<int[]>();
+		for(int i = 0; i < this.rows; i++) {
+			for(int j = 0; j < this.columns; j++) {
+				if(grid[i][j] != '#') {
+					open.add(new int[] {i, j});
+				}
+			}
+		}
+		if(open.size() < this.ghosts + this.superGums + 2)
+			throw new IllegalArgumentException("the maze is too small for its ghosts and super-gums");
+		for(int[] square : open) {
+			grid[square[0]][square[1]] = '.';
+		}
+		int[] pacman = open.get(random.nextInt(open.size()));
+		grid[pacman[0]][pacman[1]] = 'P';
+		// les fantômes partent au hasard parmi la moitié des cases la plus éloignée de pacman
+		int[][] distance = MazeGenerator.distances(grid, pacman);
+		ArrayList<int[]> far = new ArrayList<int[]>(open);
+		far.sort((a, b) -> distance[b[0]][b[1]] - distance[a[0]][a[1]]);
+		ArrayList<int[]> starts = new ArrayList<int[]>(far.subList(0, Math.max(this.ghosts, far.size() / 2)));
+		Collections.shuffle(starts, random);
+		int placed = 0;
+		for(int k = 0; k < starts.size() && placed < this.ghosts; k++) {
+			int[] square = starts.get(k);
+			if(grid[square[0]][square[1]] == '.') {
+				grid[square[0]][square[1]] = 'F';
+				placed++;
+			}
+		}
+		// les super-gommes vont d'abord dans les culs-de-sac
+		ArrayList<int[]> deadEnds = new ArrayList<int[]>(), others = new ArrayList<int[]>();
+		for(int[] square : open) {
+			if(grid[square[0]][square[1]] == '.') {
+				(MazeGenerator.exits(grid, square[0], square[1]) == 1 ? deadEnds : others).add(square);
+			}
+		}
+		Collections.shuffle(deadEnds, random);
+		Collections.shuffle(others, random);
+		deadEnds.addAll(others);
+		for(int k = 0; k < this.superGums; k++) {
+			grid[deadEnds.get(k)[0]][deadEnds.get(k)[1]] = '*';
+		}
+		return grid;
+	}
+
+	/**
+	 * Creuse les couloirs : arbre couvrant aléatoire des cellules puis ouverture de boucles
+	 */
+	private void carve(char[][] grid, Random random) {
+		int cellRows = (this.rows - 1) / 2, cellColumns = (this.columns - 1) / 2;
+		int target = Math.max(2, (int)Math.round(this.density * cellRows * cellColumns));
+		boolean[][] inMaze = new boolean[cellRows][cellColumns];
+		// mur candidat : cellule du labyrinthe, direction vers une cellule voisine
+		ArrayList<int[]> frontier = new ArrayList<int[]>();
+		int a = random.nextInt(cellRows), b = random.nextInt(cellColumns);
+		inMaze[a][b] = true;
+		grid[2 * a + 1][2 * b + 1] = 'O';
+		MazeGenerator.addFrontier(frontier, a, b, cellRows, cellColumns);
+		int carved = 1;
+		while(carved < target && !frontier.isEmpty()) {
+			int index = random.nextInt(frontier.size());
+			int[] wall = frontier.get(index);
+			frontier.set(index, frontier.get(frontier.size() - 1));
+			frontier.remove(frontier.size() - 1);
+			int na = wall[0] + ROW_STEP[wall[2]], nb = wall[1] + COLUMN_STEP[wall[2]];
+			if(inMaze[na][nb]) {
+				continue;
+			}
+			inMaze[na][nb] = true;
+			grid[2 * wall[0] + 1 + ROW_STEP[wall[2]]][2 * wall[1] + 1 + COLUMN_STEP[wall[2]]] = 'O';
+			grid[2 * na + 1][2 * nb + 1] = 'O';
+			MazeGenerator.addFrontier(frontier, na, nb, cellRows, cellColumns);
+			carved++;
+		}
+		// boucles : un mur entre deux cellules du labyrinthe est ouvert avec la probabilité loopRatio,
+		// et un cul-de-sac est relié à une autre cellule voisine avec la même probabilité
+		for(a = 0; a < cellRows; a++) {
+			for(b = 0; b < cellColumns; b++) {
+				if(!inMaze[a][b]) {
+					continue;
+				}
+				for(int d = 1; d < 4; d += 2) {
+					int na = a + ROW_STEP[d], nb = b + COLUMN_STEP[d];
+					if(na < cellRows && nb < cellColumns && inMaze[na][nb] && random.nextDouble() < this.loopRatio) {
+						grid[2 * a + 1 + ROW_STEP[d]][2 * b + 1 + COLUMN_STEP[d]] = 'O';
+					}
+				}
+				if(MazeGenerator.exits(grid, 2 * a + 1, 2 * b + 1) == 1 && random.nextDouble() < this.loopRatio) {
+					for(int d = 0; d < 4; d++) {
+						int na = a + ROW_STEP[d], nb = b + COLUMN_STEP[d];
+						if(na >= 0 && na < cellRows && nb >= 0 && nb < cellColumns && inMaze[na][nb]
+								&& grid[2 * a + 1 + ROW_STEP[d]][2 * b + 1 + COLUMN_STEP[d]] == '#') {
+							grid[2 * a + 1 + ROW_STEP[d]][2 * b + 1 + COLUMN_STEP[d]] = 'O';
+							break;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void addFrontier(ArrayList<int[]> frontier, int a, int b, int cellRows, int cellColumns) {
+		for(int d = 0; d < 4; d++) {
+			int na = a + ROW_STEP[d], nb = b + COLUMN_STEP[d];
+			if(na >= 0 && na < cellRows && nb >= 0 && nb < cellColumns) {
+				frontier.add(new int[] {a, b, d});
+			}
+		}
+	}
+
+	private static int exits(char[][] grid, int i, int j) {
+		int exits = 0;
+		for(int d = 0; d < 4; d++) {
+			int ni = i + ROW_STEP[d], nj = j + COLUMN_STEP[d];
+			if(ni >= 0 && ni < grid.length && nj >= 0 && nj < grid[ni].length && grid[ni][nj] != '#') {
+				exits++;
+			}
+		}
+		return exits;
+	}
+
+	/**
+	 * Calcule la distance de chaque case à une case de départ (parcours en largeur)
+	 *
+	 * @return la distance de chaque case, Integer.MAX_VALUE pour un mur
+	 */
+	private static int[][] distances(char[][] grid, int[] start) {
+		int[][] distance = new int[grid.length][grid[0].length];
+		for(int[] row : distance) {
+			Arrays.fill(row, Integer.MAX_VALUE);
+		}
+		ArrayDeque<int[]> queue = new ArrayDeque<int[]>();
+		distance[start[0]][start[1]] = 0;
+		queue.add(start);
+		while(!queue.isEmpty()) {
+			int[] square = queue.poll();
+			for(int d = 0; d < 4; d++) {
+				int ni = square[0] + ROW_STEP[d], nj = square[1] + COLUMN_STEP[d];
+				if(grid[ni][nj] != '#' && distance[ni][nj] == Integer.MAX_VALUE) {
+					distance[ni][nj] = distance[square[0]][square[1]] + 1;
+					queue.add(new int[] {ni, nj});
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * Écrit un labyrinthe dans un fichier .map lisible par Level. L'en-tête ne donne le nombre de lignes que si la map
+	 * n'est pas carrée, pour rester lisible par les anciennes versions
+	 *
+	 * @param grid le contenu de chaque case
+	 * @param color la couleur des murs
+	 * @param file le fichier .map
+	 * @throws IOException si le fichier ne peut pas être écrit
+	 */
+	public static void write(char[][] grid, String color, String file) throws IOException {
+		BufferedWriter bw = new BufferedWriter(new FileWriter(file));
+		try {
+			int columns = grid[0].length;
+			bw.write(columns + ";" + color + ";" + (columns == grid.length ? "" : grid.length + ";") + "\r\n");
+			for(char[] row : grid) {
+				bw.write(row);
+				bw.write("\r\n");
+			}
+		}
+		finally {
+			bw.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		Options options = new Options(args, "--size", "--rows", "--columns", "--density", "--loops", "--ghosts", "--super",
+				"--color", "--seed", "--output");
+		int size = options.getInt("--size", 50);
+		int rows = options.getInt("--rows", size), columns = options.getInt("--columns", size);
+		String output = options.getString("--output", null);
+		if(output == null)
+			throw new IllegalArgumentException("--output is required");
+		MazeGenerator generator = new MazeGenerator(rows, columns, options.getDouble("--density", 1.0),
+				options.getDouble("--loops", 0.15), options.getInt("--ghosts", 2), options.getInt("--super", 4),
+				options.getSeed(1));
+		MazeGenerator.write(generator.generate(), options.getString("--color", "blue"), output);
+	}
+}
@@ -0,0 +1,285 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Cette classe calcule, au chargement d'un niveau, la topologie du labyrinthe :
+ * nombre de sorties de chaque case, profondeur des culs-de-sac, distance au prochain carrefour
+ * dans chaque direction et points d'articulation du graphe des cases praticables.
+ * Les résultats sont des tableaux d'entiers indexés par ligne * nbColonnes + colonne.
+ *
+ * @inv degree.length == deadEndDepth.length == articulation.length == rows * columns
+ */
+public class MazeTopology {
+
+	/** Indices des directions dans junctionDistance */
+	public static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+	/** Valeur de junctionDistance lorsque la direction est bloquée ou ne mène à aucun carrefour */
+	public static final int NO_JUNCTION = -1;
+	private static final int[] ROW_STEP = {-1, 1, 0, 0};
+	private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+
+	private int rows;
+	private int columns;
+	private boolean[] wall;
+	/** Nombre de cases voisines praticables */
+	private int[] degree;
+	/** Distance jusqu'à la sortie du cul-de-sac, 0 si la case appartient à une boucle */
+	private int[] deadEndDepth;
+	/** Distance au carrefour le plus proche en partant dans chaque direction, NO_JUNCTION sinon */
+	private int[][] junctionDistance;
+	/** Vrai si supprimer la case déconnecte le labyrinthe */
+	private boolean[] articulation;
+
+	/**
+	 * Calcule la topologie d'un labyrinthe
+	 *
+	 * @param map le contenu des cases ('#' pour un mur)
+	 * @pre map.length > 0
+	 */
+	public MazeTopology(char[][] map) {
+		assert map.length > 0 : "Precondition non respectée : carte vide";
+		this.rows = map.length;
+		this.columns = map[0].length;
+		int size = this.rows * this.columns;
+		this.wall = new boolean[size];
+		for(int i = 0; i < this.rows; i++) {
+			for(int j = 0; j < this.columns; j++) {
+				this.wall[i * this.columns + j] = map[i][j] == '#';
+			}
+		}
+		this.degree = new int[size];
+		for(int cell = 0; cell < size; cell++) {
+			if(!this.wall[cell]) {
+				for(int d = 0; d < 4; d++) {
+					if(this.neighbor(cell, d) >= 0) {
+						this.degree[cell]++;
+					}
+				}
+			}
+		}
+		this.computeDeadEnds();
+		this.computeJunctionDistances();
+		this.computeArticulations();
+	}
+
+	/**
+	 * Retourne la case voisine praticable dans une direction
+	 *
+	 * @param cell la case de départ
+	 * @param d la direction (UP, DOWN, LEFT, RIGHT)
+	 * @return l'indice de la case voisine, -1 si c'est un mur ou le bord de la carte
+	 */
+	public int neighbor(int cell, int d) {
+		int i = cell / this.columns + ROW_STEP[d];
+		int j = cell % this.columns + COLUMN_STEP[d];
+		if(i < 0 || i >= this.rows || j < 0 || j >= this.columns || this.wall[i * this.columns + j]) {
+			return -1;
+		}
+		return i * this.columns + j;
+	}
+
+	/**
+	 * Les culs-de-sac sont obtenus en retirant itérativement les cases n'ayant qu'une seule sortie :
+	 * il reste les boucles du labyrinthe. La profondeur d'une case retirée est sa distance à ces boucles.
+	 */
+	private void computeDeadEnds() {
+		int size = this.degree.length;
+		int[] remaining = this.degree.clone();
+		boolean[] removed = new boolean[size];
+		int[] queue = new int[size];
+		int head = 0, tail = 0;
+		for(int cell = 0; cell < size; cell++) {
+			if(!this.wall[cell] && remaining[cell] <= 1) {
+				removed[cell] = true;
+				queue[tail++] = cell;
+			}
+		}
+		while(head < tail) {
+			int cell = queue[head++];
+			for(int d = 0; d < 4; d++) {
+				int next = this.neighbor(cell, d);
+				if(next >= 0 && !removed[next] && --remaining[next] <= 1) {
+					removed[next] = true;
+					queue[tail++] = next;
+				}
+			}
+		}
+		this.deadEndDepth = new int[size];
+		Arrays.fill(this.deadEndDepth, -1);
+		head = 0;
+		tail = 0;
+		for(int cell = 0; cell < size; cell++) {
+			if(!this.wall[cell] && !removed[cell]) {
+				this.deadEndDepth[cell] = 0;
+				queue[tail++] = cell;
+			}
+		}
+		while(head < tail) {
+			int cell = queue[head++];
+			for(int d = 0; d < 4; d++) {
+				int next = this.neighbor(cell, d);
+				if(next >= 0 && this.deadEndDepth[next] < 0) {
+					this.deadEndDepth[next] = this.deadEndDepth[cell] + 1;
+					queue[tail++] = next;
+				}
+			}
+		}
+		// murs et labyrinthe sans boucle : pas de profondeur
+		for(int cell = 0; cell < size; cell++) {
+			if(this.deadEndDepth[cell] < 0) {
+				this.deadEndDepth[cell] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Suit chaque couloir (cases à deux sorties) jusqu'au premier carrefour (au moins trois sorties)
+	 */
+	private void computeJunctionDistances() {
+		int size = this.degree.length;
+		this.junctionDistance = new int[4][size];
+		for(int d = 0; d < 4; d++) {
+			Arrays.fill(this.junctionDistance[d], NO_JUNCTION);
+		}
+		for(int cell = 0; cell < size; cell++) {
+			if(this.wall[cell]) {
+				continue;
+			}
+			for(int d = 0; d < 4; d++) {
+				int current = this.neighbor(cell, d);
+				int from = d;
+				int steps = 1;
+				while(current >= 0 && current != cell && this.degree[current] == 2) {
+					int next = -1;
+					for(int nd = 0; nd < 4 && next < 0; nd++) {
+						if(nd != MazeTopology.opposite(from) && this.neighbor(current, nd) >= 0) {
+							next = this.neighbor(current, nd);
+							from = nd;
+						}
+					}
+					current = next;
+					steps++;
+				}
+				if(current >= 0 && current != cell && this.degree[current] >= 3) {
+					this.junctionDistance[d][cell] = steps;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Algorithme de Tarjan (version itérative pour supporter les grandes cartes)
+	 */
+	private void computeArticulations() {
+		int size = this.degree.length;
+		this.articulation = new boolean[size];
+		int[] discovery = new int[size];
+		int[] low = new int[size];
+		int[] parent = new int[size];
+		int[] nextDirection = new int[size];
+		int[] stack = new int[size];
+		Arrays.fill(discovery, -1);
+		int time = 0;
+		for(int root = 0; root < size; root++) {
+			if(this.wall[root] || discovery[root] >= 0) {
+				continue;
+			}
+			int rootChildren = 0;
+			int top = 0;
+			stack[top++] = root;
+			parent[root] = -1;
+			discovery[root] = low[root] = time++;
+			nextDirection[root] = 0;
+			while(top > 0) {
+				int cell = stack[top - 1];
+				if(nextDirection[cell] < 4) {
+					int next = this.neighbor(cell, nextDirection[cell]++);
+					if(next < 0) {
+						continue;
+					}
+					if(discovery[next] < 0) {
+						parent[next] = cell;
+						discovery[next] = low[next] = time++;
+						nextDirection[next] = 0;
+						stack[top++] = next;
+						if(cell == root) {
+							rootChildren++;
+						}
+					} else if(next != parent[cell]) {
+						low[cell] = Math.min(low[cell], discovery[next]);
+					}
+				} else {
+					top--;
+					int up = parent[cell];
+					if(up >= 0) {
+						low[up] = Math.min(low[up], low[cell]);
+						if(up != root && low[cell] >= discovery[up]) {
+							this.articulation[up] = true;
+						}
+					}
+				}
+			}
+			this.articulation[root] = rootChildren > 1;
+		}
+	}
+
+	private static int opposite(int d) {
+		return d ^ 1;
+	}
+
+	/**
+	 * Getter pour le nombre de lignes
+	 *
+	 * @return le nombre de lignes
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Getter pour le nombre de colonnes
+	 *
+	 * @return le nombre de colonnes
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Getter pour le nombre de sorties de chaque case
+	 *
+	 * @return le nombre de sorties, indexé par ligne * nbColonnes + colonne
+	 */
+	public int[] getDegree() {
+		return this.degree;
+	}
+
+	/**
+	 * Getter pour la profondeur des culs-de-sac : 1 pour une alcôve d'une case, 10 au fond d'une impasse de 10 cases
+	 *
+	 * @return la distance à la sortie du cul-de-sac, 0 hors des culs-de-sac
+	 */
+	public int[] getDeadEndDepth() {
+		return this.deadEndDepth;
+	}
+
+	/**
+	 * Getter pour la distance au carrefour le plus proche dans une direction
+	 *
+	 * @param d la direction (UP, DOWN, LEFT, RIGHT)
+	 * @return la distance en suivant le couloir, NO_JUNCTION si la direction est bloquée ou mène à un cul-de-sac
+	 */
+	public int[] getJunctionDistance(int d) {
+		return this.junctionDistance[d];
+	}
+
+	/**
+	 * Getter pour les points d'articulation du labyrinthe
+	 *
+	 * @return vrai pour les cases dont la suppression déconnecte le labyrinthe
+	 */
+	public boolean[] getArticulation() {
+		return this.articulation;
+	}
+}
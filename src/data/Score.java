@@ -1,10 +1,17 @@
 package data;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 //import java.util.ArrayList;
 
 
 /**
- * Cette classe permet, à partir d'un fichier .map, de créer toutes les figures d'un niveau
+ * Cette classe garde le meilleur score et l'historique des parties.
+ * Le meilleur score est lu une seule fois dans SCOREFILE puis gardé en mémoire : l'affichage peut le demander à
+ * chaque image sans accès au disque. Il n'est écrit que lorsqu'il est battu, dans un fichier temporaire renommé
+ * ensuite en SCOREFILE, si bien qu'une partie interrompue ne laisse jamais un fichier vide ou tronqué.
+ * Chaque partie terminée ajoute une ligne à HISTORYFILE : date (secondes depuis 1970);graine;score;déplacements;record
+ * (1 si la partie a battu le meilleur score, 0 sinon).
  *
  * @author RGM
  * @version 03/03/2014
@@ -15,31 +22,88 @@ public class Score {
 
 	/** Le fichire contenant le score */
 	private static final String SCOREFILE = "./doc/score.score";
+	/** Le fichier contenant l'historique des parties */
+	private static final String HISTORYFILE = "./doc/score.history";
+	/** Le meilleur score, null tant qu'il n'a pas été lu */
+	private static String best;
 
-	public static String getScore(){
-		String str = "0";
+	/**
+	 * Donne le meilleur score, lu dans SCOREFILE au premier appel seulement
+	 *
+	 * @return le meilleur score, "0" si le fichier ne peut pas être lu
+	 */
+	public static synchronized String getScore(){
+		if (best == null) {
+			best = "0";
+			try {
+				BufferedReader br = Files.newBufferedReader(Paths.get(SCOREFILE), StandardCharsets.UTF_8);
+				try {
+					String line = br.readLine();
+					if (line != null && !line.trim().isEmpty()) {
+						best = line.trim();
+					}
+				}
+				finally {
+					br.close();
+				}
+			}
+			catch (IOException exception) {
+				System.out.println ("Erreur lors de la lecture du score : " + exception.getMessage());
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Remplace le meilleur score, en mémoire et dans SCOREFILE
+	 *
+	 * @param score le nouveau meilleur score
+	 */
+	public static synchronized void setScore(String score){
+		best = score;
 		try {
-			InputStream ips = new FileInputStream(SCOREFILE);
-			InputStreamReader ipsr = new InputStreamReader(ips);
-			BufferedReader br = new BufferedReader(ipsr);
-			str = br.readLine();
-			br.close();
+			Path file = Paths.get(SCOREFILE).toAbsolutePath();
+			Path tmp = Files.createTempFile(file.getParent(), "score", ".tmp");
+			try {
+				Files.write(tmp, score.getBytes(StandardCharsets.UTF_8));
+				try {
+					Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				}
+				catch (AtomicMoveNotSupportedException exception) {
+					Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			finally {
+				Files.deleteIfExists(tmp);
+			}
 		}
 		catch (IOException exception) {
 			System.out.println ("Erreur lors de l'ecriture du score : " + exception.getMessage());
 		}
-		return str;
 	}
 
-	public static void setScore(String score){
+	/**
+	 * Enregistre une partie terminée : une ligne dans l'historique, et le meilleur score s'il est battu
+	 *
+	 * @param seed la graine de la partie
+	 * @param score le score de la partie
+	 * @param moves le nombre de déplacements de la partie
+	 * @param counts faux si la partie ne peut pas battre le meilleur score (partie arrêtée avant la fin)
+	 * @return vrai si le meilleur score a été battu
+	 */
+	public static synchronized boolean record(long seed, int score, int moves, boolean counts){
+		boolean record = counts && score > Integer.parseInt(getScore());
+		if (record) {
+			setScore(score + "");
+		}
+		String line = System.currentTimeMillis() / 1000 + ";" + seed + ";" + score + ";" + moves + ";" + (record ? 1 : 0) + "\n";
 		try {
-			FileWriter fw = new FileWriter(SCOREFILE);
-			fw.write(score);
-			fw.close();
+			Files.write(Paths.get(HISTORYFILE), line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
 		}
 		catch (IOException exception) {
-			System.out.println ("Erreur lors de l'ecriture du score : " + exception.getMessage());
+			System.out.println ("Erreur lors de l'ecriture de l'historique : " + exception.getMessage());
 		}
+		return record;
 	}
 
 	protected void invariant() {
@@ -1,63 +1,210 @@
 package logic;
 
+import java.io.PrintStream;
+import data.MazeTopology;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import javax.swing.JOptionPane;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class AI {
-    private static Map<String, Integer> visited = new HashMap<>();
+    // Search depth counted in macro-actions (corridor to corridor), not in squares
     private static final int MAX_DEPTH = 3; 
+    // Longest corridor followed by one macro-action: 3 x 12 squares of horizon at most
+    private static final int MAX_MACRO_LENGTH = 12;
+    // Region used for the food attraction (gum count in a (2R+1)x(2R+1) window)
+    private static final int REGION_RADIUS = 8;
 
-    public static String findNextMove(BeliefState currentState) {
+    // Macro-actions checked by the AND-OR safety test before a step of the tour
+    private static final int ENDGAME_SAFETY_DEPTH = 1;
+
+    public static String findNextMove(AIContext context, BeliefState currentState) {
+        return search(context, currentState).getBestAction();
+    }
+
+    /**
+     * Runs the whole decision (reflexes then AND-OR search) and reports the score,
+     * scenario count, depth reached and node count of every root action.
+     */
+    public static SearchResult search(AIContext context, BeliefState currentState) {
         
-        // 1. UPDATE HISTORY
-        Position currentPos = currentState.getPacmanPosition();
-        String currentKey = currentPos.getRow() + "," + currentPos.getColumn();
-        visited.put(currentKey, visited.getOrDefault(currentKey, 0) + 1);
+        // 1. UPDATE HISTORY (per game, before the workers of this decision start)
+        context.recordVisit(currentState);
 
-        // 2. DEBUG FEEDBACK
-        feedback(currentState);
+        SearchResult searchResult = new SearchResult();
 
         // --- REFLEX LAYER (INSTINCT DE TUEUR) ---
         // If a ghost is scared, visible, and 1 step away, KILL IT.
         String killMove = checkImmediateKill(currentState);
+        // --- ENDGAME LAYER: few gums left, follow the shortest tour while it is safe ---
+        String tourMove = (killMove == null) ? followEndgameTour(context, currentState) : null;
         if (killMove != null) {
-            System.out.println(">>> KILL REFLEX ACTIVATED: " + killMove);
-            return killMove; 
+            searchResult.setReflex("KILL REFLEX", killMove);
+        } else if (tourMove != null) {
+            searchResult.setReflex("ENDGAME TOUR", tourMove);
+        } else {
+            // 2. NORMAL SEARCH (AND-OR ON JUNCTION DECISIONS), ITERATIVE DEEPENING UNDER A DEADLINE
+            // Ghost threat computed once from the root belief, shared read-only by every leaf
+            context.setDangerField(new DangerField(currentState));
+            // Gum fields of the root (normally inherited from the start of the level), shared by the whole search
+            currentState.buildGumFields();
+            Plans plans = currentState.extendsBeliefStateMacro(MAX_MACRO_LENGTH);
+            ArrayList<Callable<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < plans.size(); i++) {
+                Result result = plans.getResult(i);
+                if (plans.getAction(i).isEmpty()) continue;
+                
+                boolean startsWithUncertainty = (result.size() > 1);
+                SearchResult.ActionScore entry = searchResult.addAction(plans.getAction(i).get(0), result.size(), startsWithUncertainty, MAX_DEPTH);
+                workers.add(() -> {
+                    deepen(context, result, currentState, startsWithUncertainty, entry);
+                    return null;
+                });
+            }
+            runWorkers(context, workers, searchResult);
+
+            String bestAction = pickBestAction(context.getRandom(), searchResult);
+            if (bestAction != null) {
+                searchResult.setBestAction(bestAction);
+            } else {
+                // Nothing finished before the deadline: cheap safe move
+                searchResult.setReflex("SAFE MOVE FALLBACK", findSafeMove(currentState));
+            }
         }
-        // ---------------------------------------------
 
-        // 3. NORMAL SEARCH (AND-OR)
-        Plans plans = currentState.extendsBeliefState();
-        String bestAction = PacManLauncher.UP; 
-        double maxScore = Double.NEGATIVE_INFINITY;
+        // 3. DEBUG FEEDBACK (rendered from the search, no extra search)
+        if (context.getFeedbackOutput() != null) {
+            feedback(context, currentState, searchResult);
+        }
+        return searchResult;
+    }
 
-        for (int i = 0; i < plans.size(); i++) {
-            Result result = plans.getResult(i);
-            if (plans.getAction(i).isEmpty()) continue;
-            
-            boolean startsWithUncertainty = (result.size() > 1);
+    // --- ANYTIME SEARCH ---
+
+    // Iterative deepening below one root action: every completed horizon is published,
+    // so the best move found so far is always available when the deadline hits.
+    private static void deepen(AIContext context, Result result, BeliefState currentState, boolean startsWithUncertainty, SearchResult.ActionScore entry) {
+        SearchResult.ActionScore worker = new SearchResult.ActionScore(entry.getAction(), result.size(), startsWithUncertainty, MAX_DEPTH);
+        try {
+            for (int horizon = 1; horizon <= MAX_DEPTH; horizon++) {
+                worker.startIteration(horizon);
+                double score = evaluateANDNode(context, result, currentState, horizon - 1, startsWithUncertainty, worker);
+                entry.publish(score, horizon, worker);
+            }
+        } catch (CancellationException e) {
+            // deadline reached, the last published horizon is kept
+        }
+    }
 
-            double score = evaluateANDNode(result, currentState, MAX_DEPTH - 1, startsWithUncertainty);
+    private static void runWorkers(AIContext context, ArrayList<Callable<Void>> workers, SearchResult searchResult) {
+        long deadlineMs = context.getDeadline();
+        if (deadlineMs <= 0) {
+            for (Callable<Void> worker : workers) {
+                try {
+                    worker.call();
+                } catch (Exception e) {
+                    throw new IllegalStateException("search of a root action failed", e);
+                }
+            }
+            return;
+        }
+        try {
+            // invokeAll cancels (interrupts) every worker still running at the deadline
+            for (Future<Void> future : context.getWorkers().invokeAll(workers, deadlineMs, TimeUnit.MILLISECONDS)) {
+                if (future.isCancelled()) {
+                    searchResult.setTimedOut(true);
+                    continue;
+                }
+                // a worker that failed must not leave its action silently unscored
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("search of a root action failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            searchResult.setTimedOut(true);
+        }
+    }
 
-            score += Math.random() * 0.01; 
+    // Compares the actions on the deepest horizon they all completed, so that a shallow
+    // optimistic score never beats a deeper pessimistic one.
+    private static String pickBestAction(GameRandom random, SearchResult searchResult) {
+        int horizon = Integer.MAX_VALUE;
+        for (SearchResult.ActionScore entry : searchResult.getActions()) {
+            if (entry.getCompletedDepth() > 0) horizon = Math.min(horizon, entry.getCompletedDepth());
+        }
+        if (horizon == Integer.MAX_VALUE) return null;
 
-            if (score > maxScore) {
+        String bestAction = null;
+        double maxScore = Double.NEGATIVE_INFINITY;
+        for (SearchResult.ActionScore entry : searchResult.getActions()) {
+            if (entry.getCompletedDepth() < horizon) continue;
+            double score = entry.getScore(horizon) + random.nextDouble() * 0.01; 
+            if (bestAction == null || score > maxScore) {
                 maxScore = score;
+                bestAction = entry.getAction();
+            }
+        }
+        return bestAction;
+    }
+
+    // --- SAFE MOVE FALLBACK ---
+    // One square look-ahead: prefer a move where no scenario kills Pacman, then one that eats a gum.
+    private static String findSafeMove(BeliefState state) {
+        Plans plans = state.extendsBeliefState();
+        String bestAction = PacManLauncher.UP;
+        int bestRank = -1;
+        for (int i = 0; i < plans.size(); i++) {
+            if (plans.getAction(i).isEmpty()) continue;
+            boolean safe = true;
+            boolean eats = true;
+            for (BeliefState next : plans.getResult(i).getBeliefStates()) {
+                if (next.getLife() < state.getLife()) safe = false;
+                if (next.getScore() <= state.getScore()) eats = false;
+            }
+            int rank = (safe ? 2 : 0) + (eats ? 1 : 0);
+            if (rank > bestRank) {
+                bestRank = rank;
                 bestAction = plans.getAction(i).get(0);
             }
         }
-        
-        // waitForUserPopup();
         return bestAction;
     }
 
-    private static void waitForUserPopup() {
-        try {
-            JOptionPane.showMessageDialog(null, "Score calculated. Press OK for next move.", "AI Debugger", JOptionPane.PLAIN_MESSAGE);
-        } catch (Exception e) {}
+    // --- ENDGAME (LAST GUMS) ---
+    // The tour is solved once (Held-Karp) and kept in the context; each step must pass the
+    // AND-OR safety check, otherwise the normal search decides this move.
+    private static String followEndgameTour(AIContext context, BeliefState state) {
+        if (state.getNbrOfGommes() > context.getEndgameThreshold()) return null;
+        EndgameSolver solver = context.getEndgame();
+        if (solver == null || !solver.matches(state)) {
+            solver = EndgameSolver.solve(state);
+            context.setEndgame(solver);
+        }
+        if (solver == null) return null;
+        String move = solver.nextMove(state);
+        if (move == null || !isSafe(state.extendsBeliefState(move), state, ENDGAME_SAFETY_DEPTH)) return null;
+        return move;
+    }
+
+    // AND node: Pacman survives every scenario; OR node: while depth remains, one macro-action keeps him alive
+    private static boolean isSafe(Result result, BeliefState parent, int depth) {
+        for (BeliefState nextState : result.getBeliefStates()) {
+            if (nextState.getLife() < parent.getLife()) return false;
+            if (depth == 0 || nextState.getNbrOfGommes() == 0) continue;
+            Plans plans = nextState.extendsBeliefStateMacro(MAX_MACRO_LENGTH);
+            boolean escape = plans.size() == 0;
+            for (int i = 0; i < plans.size() && !escape; i++) {
+                escape = isSafe(plans.getResult(i), nextState, depth - 1);
+            }
+            if (!escape) return false;
+        }
+        return true;
     }
 
     // --- REFLEX KILL CHECKER ---
@@ -83,7 +230,7 @@ public class AI {
     }
 
     // --- AND NODE ---
-    private static double evaluateANDNode(Result result, BeliefState parent, int depth, boolean isInvisibleContext) {
+    private static double evaluateANDNode(AIContext context, Result result, BeliefState parent, int depth, boolean isInvisibleContext, SearchResult.ActionScore stats) {
         double minScore = Double.POSITIVE_INFINITY;
         boolean hasValidScenario = false;
         boolean currentContextIsInvisible = isInvisibleContext || (result.size() > 1);
@@ -101,7 +248,7 @@ public class AI {
                 if (currentContextIsInvisible) val = -500000.0; 
                 else val = -1000000000.0; 
             } else {
-                val = deepSearch(nextState, parent, depth, currentContextIsInvisible);
+                val = deepSearch(context, nextState, parent, depth, currentContextIsInvisible, stats);
             }
 
             if (val < minScore) minScore = val;
@@ -110,70 +257,74 @@ public class AI {
     }
 
     // --- OR NODE ---
-    private static double deepSearch(BeliefState state, BeliefState parent, int depth, boolean isInvisibleContext) {
-        if (depth == 0) return heuristic(state, parent, isInvisibleContext);
+    private static double deepSearch(AIContext context, BeliefState state, BeliefState parent, int depth, boolean isInvisibleContext, SearchResult.ActionScore stats) {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+        stats.visit(depth);
+        if (depth == 0) return heuristic(context, state, parent, isInvisibleContext);
 
-        Plans futurePlans = state.extendsBeliefState();
-        if (futurePlans.size() == 0) return heuristic(state, parent, isInvisibleContext);
+        Plans futurePlans = state.extendsBeliefStateMacro(MAX_MACRO_LENGTH);
+        if (futurePlans.size() == 0) return heuristic(context, state, parent, isInvisibleContext);
 
         double maxScore = Double.NEGATIVE_INFINITY;
 
         for (int i = 0; i < futurePlans.size(); i++) {
             Result res = futurePlans.getResult(i);
-            double score = evaluateANDNode(res, state, depth - 1, isInvisibleContext);
+            double score = evaluateANDNode(context, res, state, depth - 1, isInvisibleContext, stats);
             if (score > maxScore) maxScore = score;
         }
         return maxScore;
     }
 
-    private static double heuristic(BeliefState state, BeliefState parentState, boolean isUncertain) {
-        return getObjectiveScore(state, parentState, isUncertain) - getDangerScore(state);
+    private static double heuristic(AIContext context, BeliefState state, BeliefState parentState, boolean isUncertain) {
+        return getObjectiveScore(context, state, parentState, isUncertain) - getDangerScore(context, state);
     }
 
-    private static double getObjectiveScore(BeliefState state, BeliefState parent, boolean isUncertain) {
+    private static double getObjectiveScore(AIContext context, BeliefState state, BeliefState parent, boolean isUncertain) {
+        AIWeights w = context.getWeights();
         double score = 0;
         Position pac = state.getPacmanPosition();
-        String key = pac.getRow() + "," + pac.getColumn();
 
         // 1. SCORE DIFFERENCE (Kill Confirmed > Super Gum > Gum)
-        if (state.getScore() > parent.getScore()) {
-            double diff = state.getScore() - parent.getScore();
-            if (diff > 100) {
-                score += diff * 10000.0; // Ghost Eaten
-            } else {
-                // Regular Coin
-                score += diff * 20.0;
-                
-                // --- GREEDING LOGIC ---
-                // If ALL dangerous ghosts are close (Dist <= 2), we know the map is safe.
-                // We boost the value of eating regular coins here.
-                if (areAllGhostsClose(state)) {
-                    score += diff * 500.0; 
-                }
+        // A macro-action can eat a whole corridor of gums and a ghost on the way:
+        // ghosts and gums are counted apart instead of guessed from the score difference.
+        int ghostPoints = (state.getGhostsEaten() - parent.getGhostsEaten()) * GameEngine.SCORE_FANTOME;
+        int gumPoints = (parent.getNbrOfGommes() - state.getNbrOfGommes()) * GameEngine.SCORE_GOMME;
+        if (ghostPoints > 0) {
+            score += ghostPoints * w.get(AIWeights.GHOST_EATEN); // Ghost Eaten
+        }
+        if (gumPoints > 0) {
+            // Regular Coin
+            score += gumPoints * w.get(AIWeights.GUM);
+            
+            // --- GREEDING LOGIC ---
+            // If ALL dangerous ghosts are close (Dist <= 2), we know the map is safe.
+            // We boost the value of eating regular coins here.
+            if (areAllGhostsClose(context, state)) {
+                score += gumPoints * w.get(AIWeights.GREED);
             }
         }
 
         // 2. COIN DENSITY
-        score += getCoinDensityScore(state, pac);
+        score += getCoinDensityScore(w, state, pac);
         
         // 3. SMART GHOST HUNTING
         if (!isUncertain) {
-            score += getGhostHuntingScore(state, pac);
+            score += getGhostHuntingScore(w, state, pac);
         }
 
         // 4. EXPLORATION
-        if (isUncertain && visited.getOrDefault(key, 0) == 0) {
-            score += 200.0; 
+        if (isUncertain && context.getVisits(pac.getRow(), pac.getColumn()) == 0) {
+            score += w.get(AIWeights.EXPLORATION);
         }
 
         return score;
     }
 
     // --- DANGER ANALYSIS (STRATEGIC POSITIONING) ---
-    private static double getDangerScore(BeliefState state) {
+    private static double getDangerScore(AIContext context, BeliefState state) {
+        AIWeights w = context.getWeights();
         double danger = 0;
         Position pac = state.getPacmanPosition();
-        String key = pac.getRow() + "," + pac.getColumn();
 
         // 1. STRATEGIC POSITIONING
         // Check Information State: Do we know where dangerous ghosts are?
@@ -181,40 +332,20 @@ public class AI {
 
         // If Unsafe (Invisible Ghosts), analyze Map Topology
         if (!isTacticalSituationSafe) {
-            int exits = countExits(state, pac);
-            
-            if (exits >= 3) {
-                // JUNCTION: Safe Haven (Bonus)
-                danger -= 500.0; 
-            } else if (exits == 2) {
-                // CORRIDOR: Death Trap (Penalty)
-                danger += 2000.0; 
-            } else if (exits == 1) {
-                // DEAD END (Penalty)
-                danger += 5000.0;
-            }
+            danger += getTrapScore(w, state.getTopology(), pac.getRow(), pac.getColumn());
         }
 
         // 2. VISITED PENALTY
-        int nbrVisits = visited.getOrDefault(key, 0);
+        int nbrVisits = context.getVisits(pac.getRow(), pac.getColumn());
         if (nbrVisits > 0) {
-            danger += Math.pow(nbrVisits, 2) * 50.0; 
+            danger += Math.pow(nbrVisits, 2) * w.get(AIWeights.VISIT);
         }
 
-        // 3. GHOST PROXIMITY
-        for (int i = 0; i < state.getNbrOfGhost(); i++) {
-            if (state.getCompteurPeur(i) > 0) continue; 
-            
-            TreeSet<Position> positions = state.getGhostPositions(i);
-            if (positions.isEmpty()) continue;
+        // 3. GHOST PROXIMITY (read from the danger field of the decision)
+        danger += context.getDangerField().getProximity(pac.getRow(), pac.getColumn()) * w.get(AIWeights.PROXIMITY);
 
-            for (Position gp : positions) {
-                int dist = Math.abs(gp.getRow() - pac.getRow()) + Math.abs(gp.getColumn() - pac.getColumn());
-                if (dist < 3) {
-                    danger += 1000.0 / (dist + 1);
-                }
-            }
-        }
+        // 4. FORCED CAPTURE (offline tablebase, folded into the danger field of the decision)
+        danger += context.getDangerField().getForcedCapture(pac.getRow(), pac.getColumn()) * w.get(AIWeights.FORCED_CAPTURE);
         return danger;
     }
 
@@ -231,62 +362,53 @@ public class AI {
     }
 
     // Returns TRUE only if ALL dangerous ghosts are within Distance 2
-    private static boolean areAllGhostsClose(BeliefState state) {
+    private static boolean areAllGhostsClose(AIContext context, BeliefState state) {
         Position pac = state.getPacmanPosition();
-        int ghostCount = state.getNbrOfGhost();
-        for(int i=0; i<ghostCount; i++) {
-            if (state.getCompteurPeur(i) > 0) continue; 
-            TreeSet<Position> positions = state.getGhostPositions(i);
-            if (positions.isEmpty()) return false; 
-            int minDist = Integer.MAX_VALUE;
-            for(Position p : positions) {
-                int d = Math.abs(p.getRow() - pac.getRow()) + Math.abs(p.getColumn() - pac.getColumn());
-                if(d < minDist) minDist = d;
-            }
-            if (minDist > 2) return false;
-        }
-        return true; 
+        return context.getDangerField().allWithin(pac.getRow(), pac.getColumn(), 2);
     }
 
-    private static int countExits(BeliefState state, Position p) {
-        int exits = 0;
-        char[][] map = state.getMap();
-        int r = p.getRow(); int c = p.getColumn();
-        if (isValid(r+1, c, map)) exits++;
-        if (isValid(r-1, c, map)) exits++;
-        if (isValid(r, c+1, map)) exits++;
-        if (isValid(r, c-1, map)) exits++;
-        return exits;
-    }
-
-    private static boolean isValid(int r, int c, char[][] map) {
-        return r >= 0 && r < map.length && c >= 0 && c < map[0].length && map[r][c] != '#';
+    // Trap metrics precomputed by data.MazeTopology when the map is loaded
+    private static double getTrapScore(AIWeights w, MazeTopology topology, int r, int c) {
+        int cell = r * topology.getColumns() + c;
+        int depth = topology.getDeadEndDepth()[cell];
+        if (depth > 0) {
+            // DEAD END: the deeper, the longer the way out
+            return w.get(AIWeights.DEAD_END) + w.get(AIWeights.DEAD_END_DEPTH) * depth;
+        }
+        int exits = topology.getDegree()[cell];
+        if (exits >= 3) {
+            // JUNCTION: Safe Haven (Bonus)
+            return -w.get(AIWeights.JUNCTION);
+        }
+        // CORRIDOR: Death Trap, worse when the next junction is far
+        int escape = Integer.MAX_VALUE;
+        for (int d = 0; d < 4; d++) {
+            int distance = topology.getJunctionDistance(d)[cell];
+            if (distance != MazeTopology.NO_JUNCTION) escape = Math.min(escape, distance);
+        }
+        double trap = w.get(AIWeights.CORRIDOR);
+        if (escape != Integer.MAX_VALUE) trap += w.get(AIWeights.CORRIDOR_LENGTH) * (escape - 1);
+        // CHOKEPOINT: the maze splits here, a ghost on it cuts the way back
+        if (topology.getArticulation()[cell]) trap += w.get(AIWeights.CHOKEPOINT);
+        return trap;
     }
 
-    private static double getCoinDensityScore(BeliefState state, Position pac) {
-        char[][] map = state.getMap();
-        int radius = 3; 
-        int coinCount = 0;
-        double minDist = Double.MAX_VALUE;
-        for (int r = pac.getRow() - radius; r <= pac.getRow() + radius; r++) {
-            for (int c = pac.getColumn() - radius; c <= pac.getColumn() + radius; c++) {
-                if (r >= 0 && r < map.length && c >= 0 && c < map[0].length) {
-                    char cell = map[r][c];
-                    if (cell == '.' || cell == '*') {
-                        coinCount++;
-                        double d = Math.abs(r - pac.getRow()) + Math.abs(c - pac.getColumn());
-                        if (d < minDist) minDist = d;
-                    }
-                }
-            }
-        }
+    private static double getCoinDensityScore(AIWeights w, BeliefState state, Position pac) {
+        // Rectangle counts come from the summed-area table: constant time whatever the radius
+        GumDensityTable gums = state.getGumTable();
+        int coinCount = gums.countAround(pac.getRow(), pac.getColumn(), 3);
+        int regionCount = gums.countAround(pac.getRow(), pac.getColumn(), REGION_RADIUS);
         double score = 0;
-        if (coinCount > 0) score += coinCount * 100.0; 
-        if (minDist != Double.MAX_VALUE) score += (2000.0 / (minDist + 1));
+        if (coinCount > 0) score += coinCount * w.get(AIWeights.GUM_DENSITY);
+        // Region-level food attraction: pulls Pacman toward the richer half of the maze
+        score += regionCount * w.get(AIWeights.GUM_REGION);
+        // Maze distance to the nearest gum, read from the shared distance field (no scan)
+        int minDist = state.distanceMinToGum();
+        if (minDist != Integer.MAX_VALUE) score += (w.get(AIWeights.NEAREST_GUM) / (minDist + 1));
         return score;
     }
 
-    private static double getGhostHuntingScore(BeliefState state, Position pac) {
+    private static double getGhostHuntingScore(AIWeights w, BeliefState state, Position pac) {
         double score = 0;
         for (int i = 0; i < state.getNbrOfGhost(); i++) {
             int fearTimer = state.getCompteurPeur(i);
@@ -297,8 +419,8 @@ public class AI {
                     int dist = Math.abs(ghostPos.getRow() - pac.getRow()) + Math.abs(ghostPos.getColumn() - pac.getColumn());
                     int requiredTime = dist + 2;
                     if (fearTimer >= requiredTime) {
-                        score += 200000.0; 
-                        score += (10000.0 / (dist + 1));
+                        score += w.get(AIWeights.HUNT);
+                        score += (w.get(AIWeights.HUNT_DISTANCE) / (dist + 1));
                     }
                 }
             }
@@ -306,61 +428,49 @@ public class AI {
         return score;
     }
 
-    public static void feedback(BeliefState currentState) {
-        System.out.println("\n=== ANALYSE AND-OR (Final Strategy) ===");
+    public static void feedback(AIContext context, BeliefState currentState, SearchResult searchResult) {
+        PrintStream out = context.getFeedbackOutput();
+        out.println("\n=== ANALYSE AND-OR (Final Strategy) ===");
         Position cur = currentState.getPacmanPosition();
-        System.out.println("Pos Pacman: " + cur.getRow() + "," + cur.getColumn());
+        out.println("Pos Pacman: " + cur.getRow() + "," + cur.getColumn());
 
-        System.out.println("--- Ghost Positions ---");
+        out.println("--- Ghost Positions ---");
         int nbrGhosts = currentState.getNbrOfGhost();
         for (int i = 0; i < nbrGhosts; i++) {
-            System.out.print("Ghost " + i + ": ");
+            out.print("Ghost " + i + ": ");
             TreeSet<Position> positions = currentState.getGhostPositions(i);
             if (positions.isEmpty()) {
-                System.out.print("Unknown/Dead");
+                out.print("Unknown/Dead");
             } else {
                 int count = 0;
                 for (Position p : positions) {
-                    System.out.print("(" + p.getRow() + "," + p.getColumn() + ") ");
+                    out.print("(" + p.getRow() + "," + p.getColumn() + ") ");
                     count++;
                     if (count >= 10) { 
-                        System.out.print("... [" + positions.size() + " total]");
+                        out.print("... [" + positions.size() + " total]");
                         break; 
                     }
                 }
             }
             if (currentState.getCompteurPeur(i) > 0) {
-                System.out.print(" [AFRAID: " + currentState.getCompteurPeur(i) + "]");
+                out.print(" [AFRAID: " + currentState.getCompteurPeur(i) + "]");
             }
-            System.out.println();
+            out.println();
         }
-        System.out.println("-----------------------");
-
-        Plans plans = currentState.extendsBeliefState();
-
-        for (int i = 0; i < plans.size(); i++) {
-            Result result = plans.getResult(i);
-            ArrayList<String> actions = plans.getAction(i);
-            if (actions.isEmpty()) continue;
-            String direction = actions.get(0); 
-            
-            boolean startsInvisible = (result.size() > 1);
-            double minScore = Double.POSITIVE_INFINITY;
-            
-            for (BeliefState nextState : result.getBeliefStates()) {
-                double val;
-                if (nextState.getLife() <= 0) {
-                    if (startsInvisible) val = -500000.0; 
-                    else val = -1000000000.0; 
-                } else {
-                    val = deepSearch(nextState, currentState, MAX_DEPTH - 1, startsInvisible);
-                }
-                if (val < minScore) minScore = val;
-            }
+        out.println("-----------------------");
 
-            System.out.println(String.format("Action: %-6s | Score: %14.0f | Scénarios: %d | Type: %s", 
-                direction, minScore, result.size(), startsInvisible ? "Invisible" : "Visible"));
+        if (searchResult.getReflex() != null) {
+            out.println(">>> " + searchResult.getReflexName() + " ACTIVATED: " + searchResult.getReflex());
+        }
+        for (SearchResult.ActionScore entry : searchResult.getActions()) {
+            out.println(String.format("Action: %-6s | Score: %14.0f | Scénarios: %d | Type: %s | Depth: %d/%d | Nodes: %d", 
+                entry.getAction(), entry.getScore(), entry.getScenarios(), entry.isInvisible() ? "Invisible" : "Visible",
+                entry.getCompletedDepth(), entry.getDepthReached(), entry.getNodes()));
+        }
+        if (searchResult.isTimedOut()) {
+            out.println("!!! DEADLINE REACHED (" + context.getDeadline() + " ms)");
         }
-        System.out.println("============================================\n");
+        out.println("Chosen: " + searchResult.getBestAction() + " | Total nodes: " + searchResult.getNodes());
+        out.println("============================================\n");
     }
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+package logic;
+
+import java.io.PrintStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import data.Level;
+
+/**
+ * class used to hold everything the AI remembers during one game: how many times Pacman visited each square,
+ * the weights of its heuristic, the danger field of the current decision and the tour of the endgame. Each game owns its context, so several games can be played
+ * by the same JVM without sharing any state.
+ * The settings of the AI (deadline of a decision, threshold of the endgame, output of the diagnostics) belong to the
+ * context too, next to the weights, so that two strategies of the same run may be set differently.
+ * With a deadline, the root actions of a decision are searched by the workers of the context, one thread per
+ * action: the workers of a game never wait behind those of another game played by the same JVM. Their threads
+ * are created at the first decision with a deadline and stop after a second without work.
+ * The visit counts are a single array owned by the thread of the game: it is only updated at the beginning of a
+ * decision, before the search workers are submitted, so the workers read it without copy nor synchronization
+ * (the executor publishes the counts to them). A worker of a previous decision still running after its deadline
+ * may read a count being updated, its result is discarded anyway.
+ * The context also owns the random source of the tie-break between equal moves, split from the seed of the game so
+ * that it does not draw the numbers of the ghosts: with the same seed and no deadline, a game is played identically.
+ */
+public class AIContext {
+	/** default time budget of one decision, in milliseconds */
+	public static final long DEFAULT_DEADLINE = 200;
+	/** default number of gums below which Pacman follows the shortest tour of the remaining gums, the most the solver takes */
+	public static final int DEFAULT_ENDGAME_THRESHOLD = EndgameSolver.MAX_GUMS;
+	/** number of search workers of a game, one per root action (up, down, left, right) */
+	public static final int WORKERS_PER_GAME = 4;
+
+	/** visit counts of the level being played, published as one object with their level */
+	private volatile Visits visits;
+	/** threat of the dangerous ghosts around each square, for the current decision */
+	private volatile DangerField dangerField;
+	/** weights of the heuristic */
+	private AIWeights weights;
+	/** tour of the last gums, computed once when the endgame starts */
+	private EndgameSolver endgame;
+	/** the visit counts are halved every decayPeriod decisions, 0 to never forget a visit */
+	private int decayPeriod;
+	private int decisions;
+	/** random source of the tie-break, only used by the thread of the game */
+	private GameRandom random;
+	/** hard time budget of one decision in milliseconds, 0 or less searches to full depth on the thread of the game */
+	private long deadline = DEFAULT_DEADLINE;
+	/** below this number of gums, Pacman follows the shortest tour of the remaining gums */
+	private int endgameThreshold = DEFAULT_ENDGAME_THRESHOLD;
+	/** where the diagnostics of each decision are printed, null switches them off */
+	private PrintStream feedbackOutput = System.out;
+	/** the search workers of this game, created on first use */
+	private ThreadPoolExecutor workers;
+
+	/**
+	 * the number of visits of every square of a level that is not a wall (Level.getCellIndex)
+	 */
+	private static final class Visits {
+		private final Level level;
+		private final int[] counts;
+
+		private Visits(Level level) {
+			this.level = level;
+			this.counts = new int[level == null ? 0 : level.getNbrCells()];
+		}
+	}
+
+	/**
+	 * create the context of a new game with the weights of the weights file, visits are never forgotten
+	 */
+	public AIContext() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * create the context of a new game with the weights of the weights file, visits are never forgotten
+	 * @param seed the seed of the game
+	 */
+	public AIContext(long seed) {
+		this(AIWeights.getLoaded(), 0, seed);
+	}
+
+	/**
+	 * create the context of a new game
+	 * @param weights the weights of the heuristic
+	 * @param decayPeriod number of decisions after which the visit counts are halved, 0 to never forget a visit
+	 * @param seed the seed of the game, the same as the seed of its GameEngine
+	 */
+	public AIContext(AIWeights weights, int decayPeriod, long seed) {
+		this.weights = weights;
+		this.decayPeriod = decayPeriod;
+		this.random = new GameRandom(seed).split();
+		this.reset();
+	}
+
+	/**
+	 * return the weights of the heuristic used in this game
+	 * @return the weights
+	 */
+	public AIWeights getWeights() {
+		return this.weights;
+	}
+
+	/**
+	 * return the time budget of one decision
+	 * @return the deadline in milliseconds, 0 or less for no deadline
+	 */
+	public long getDeadline() {
+		return this.deadline;
+	}
+
+	/**
+	 * set the hard deadline of one decision
+	 * @param milliseconds time budget of the search, 0 or less searches to full depth on the thread of the game
+	 */
+	public void setDeadline(long milliseconds) {
+		this.deadline = milliseconds;
+	}
+
+	/**
+	 * return the number of gums below which the endgame tour is followed
+	 * @return the threshold, 0 if the endgame is off
+	 */
+	public int getEndgameThreshold() {
+		return this.endgameThreshold;
+	}
+
+	/**
+	 * set the number of gums below which the endgame tour is followed
+	 * @param gums the threshold, 0 switches the endgame off (at most EndgameSolver.MAX_GUMS)
+	 */
+	public void setEndgameThreshold(int gums) {
+		this.endgameThreshold = Math.min(gums, EndgameSolver.MAX_GUMS);
+	}
+
+	/**
+	 * return where the diagnostics of each decision are printed
+	 * @return the output, null if they are off
+	 */
+	public PrintStream getFeedbackOutput() {
+		return this.feedbackOutput;
+	}
+
+	/**
+	 * select where the diagnostics of each decision are printed
+	 * @param out the output of the diagnostics, null to switch them off
+	 */
+	public void setFeedbackOutput(PrintStream out) {
+		this.feedbackOutput = out;
+	}
+
+	/**
+	 * return the search workers of this game, only from the thread of the game
+	 * @return the pool of WORKERS_PER_GAME daemon threads
+	 */
+	ExecutorService getWorkers() {
+		if(this.workers == null) {
+			this.workers = new ThreadPoolExecutor(WORKERS_PER_GAME, WORKERS_PER_GAME, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread thread = new Thread(r, "ai-search");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.workers.allowCoreThreadTimeOut(true);
+		}
+		return this.workers;
+	}
+
+	/**
+	 * forget every visit, to be called when a new level is loaded
+	 */
+	public void reset() {
+		this.visits = new Visits(null);
+		this.dangerField = null;
+		this.endgame = null;
+		this.decisions = 0;
+	}
+
+	/**
+	 * halve every visit count, so that old visits weigh less than recent ones; only on the thread of the game,
+	 * between two decisions
+	 */
+	public void decay() {
+		int[] counts = this.visits.counts;
+		for(int cell = 0; cell < counts.length; cell++)
+			counts[cell] >>= 1;
+	}
+
+	/**
+	 * count a visit of Pacman on a square, the counts are created for the level of the state at its first visit
+	 * @param state the belief state at the beginning of the decision
+	 */
+	void recordVisit(BeliefState state) {
+		Level level = state.getLevel();
+		Visits visits = this.visits;
+		if(visits.level != level) {
+			visits = new Visits(level);
+			this.visits = visits;
+		}
+		Position pac = state.getPacmanPosition();
+		int cell = level.getCellIndex(pac.getRow(), pac.getColumn());
+		if(cell >= 0)
+			visits.counts[cell]++;
+		this.decisions++;
+		if(this.decayPeriod > 0 && this.decisions % this.decayPeriod == 0)
+			this.decay();
+	}
+
+	/**
+	 * return the number of visits of a square
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @return the number of times Pacman decided a move on the square
+	 */
+	public int getVisits(int i, int j) {
+		Visits visits = this.visits;
+		int cell = visits.level == null ? -1 : visits.level.getCellIndex(i, j);
+		return cell < 0 ? 0 : visits.counts[cell];
+	}
+
+	/**
+	 * return the random source of the tie-break between equal moves
+	 * @return the generator of this game
+	 */
+	public GameRandom getRandom() {
+		return this.random;
+	}
+
+	DangerField getDangerField() {
+		return this.dangerField;
+	}
+
+	void setDangerField(DangerField dangerField) {
+		this.dangerField = dangerField;
+	}
+
+	EndgameSolver getEndgame() {
+		return this.endgame;
+	}
+
+	void setEndgame(EndgameSolver endgame) {
+		this.endgame = endgame;
+	}
+}
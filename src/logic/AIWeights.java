@@ -0,0 +1,176 @@
+package logic;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * class used to hold the weights of the heuristic of the AI.
+ * The weights are stored in a text file, one "name = value" per line ('#' starts a comment);
+ * the weights missing from the file keep their default value. The file is written by the Tuner
+ * and read when a game creates its AIContext.
+ */
+public class AIWeights {
+	public static final String WEIGHTS_FILE = "./doc/ai.weights";
+
+	// --- OBJECTIVE ---
+	static final int GHOST_EATEN = 0;
+	static final int GUM = 1;
+	static final int GREED = 2;
+	static final int GUM_DENSITY = 3;
+	static final int GUM_REGION = 4;
+	static final int NEAREST_GUM = 5;
+	static final int EXPLORATION = 6;
+	static final int HUNT = 7;
+	static final int HUNT_DISTANCE = 8;
+	// --- DANGER ---
+	static final int JUNCTION = 9;
+	static final int CORRIDOR = 10;
+	static final int CORRIDOR_LENGTH = 11;
+	static final int DEAD_END = 12;
+	static final int DEAD_END_DEPTH = 13;
+	static final int CHOKEPOINT = 14;
+	static final int VISIT = 15;
+	static final int PROXIMITY = 16;
+	static final int FORCED_CAPTURE = 17;
+
+	private static final String[] NAMES = {
+		"ghostEaten", "gum", "greed", "gumDensity", "gumRegion", "nearestGum", "exploration", "hunt", "huntDistance",
+		"junction", "corridor", "corridorLength", "deadEnd", "deadEndDepth", "chokepoint", "visit", "proximity", "forcedCapture"
+	};
+	private static final double[] DEFAULTS = {
+		10000.0, 20.0, 500.0, 100.0, 10.0, 2000.0, 200.0, 200000.0, 10000.0,
+		500.0, 2000.0, 100.0, 2000.0, 1000.0, 300.0, 50.0, 1000.0, 100000.0
+	};
+	private static AIWeights loaded;
+
+	private double[] values;
+
+	/**
+	 * create the default weights
+	 */
+	public AIWeights() {
+		this(DEFAULTS);
+	}
+
+	/**
+	 * create a set of weights
+	 * @param values the value of every weight, in the order of getName
+	 */
+	public AIWeights(double[] values) {
+		if(values.length != NAMES.length)
+			throw new IllegalArgumentException("expected " + NAMES.length + " weights, got " + values.length);
+		this.values = values.clone();
+	}
+
+	/**
+	 * return the weights of the weights file, read once and then shared by every game
+	 * @return the weights of the file, the default weights if there is no file
+	 */
+	public static synchronized AIWeights getLoaded() {
+		if(AIWeights.loaded == null)
+			AIWeights.loaded = AIWeights.load(WEIGHTS_FILE);
+		return AIWeights.loaded;
+	}
+
+	/**
+	 * read a weights file
+	 * @param file the path of the file
+	 * @return the weights, the default value is kept for the weights missing from the file
+	 */
+	public static AIWeights load(String file) {
+		double[] values = DEFAULTS.clone();
+		if(!Files.exists(Paths.get(file)))
+			return new AIWeights(values);
+		try(BufferedReader in = new BufferedReader(new FileReader(file))) {
+			String line;
+			while((line = in.readLine()) != null) {
+				int comment = line.indexOf('#');
+				if(comment >= 0)
+					line = line.substring(0, comment);
+				String[] pair = line.split("=");
+				if(pair.length != 2)
+					continue;
+				int index = AIWeights.indexOf(pair[0].trim());
+				if(index < 0)
+					System.out.println("Unknown weight ignored: " + pair[0].trim());
+				else
+					values[index] = Double.parseDouble(pair[1].trim());
+			}
+		}
+		catch(IOException | NumberFormatException e) {
+			System.out.println("Error while reading the weights, default weights used: " + e.getMessage());
+			return new AIWeights();
+		}
+		return new AIWeights(values);
+	}
+
+	/**
+	 * write the weights; the file is replaced atomically so that a reader never sees a partial file
+	 * @param file the path of the file
+	 * @param header comment written at the top of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(String file, String header) throws IOException {
+		Path target = Paths.get(file);
+		Path temporary = Paths.get(file + ".tmp");
+		try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(temporary))) {
+			out.println("# " + header);
+			for(int i = 0; i < this.values.length; i++)
+				out.println(NAMES[i] + " = " + this.values[i]);
+		}
+		Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * return the index of a weight
+	 * @param name the name of the weight
+	 * @return the index, -1 if there is no such weight
+	 */
+	public static int indexOf(String name) {
+		for(int i = 0; i < NAMES.length; i++) {
+			if(NAMES[i].equals(name))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * return the number of weights
+	 * @return the number of weights
+	 */
+	public static int size() {
+		return NAMES.length;
+	}
+
+	/**
+	 * return the name of a weight
+	 * @param index index of the weight
+	 * @return the name used in the weights file
+	 */
+	public static String getName(int index) {
+		return NAMES[index];
+	}
+
+	/**
+	 * return the value of a weight
+	 * @param index index of the weight
+	 * @return the value of the weight
+	 */
+	public double get(int index) {
+		return this.values[index];
+	}
+
+	/**
+	 * return a copy of all the weights
+	 * @return the values, in the order of getName
+	 */
+	public double[] getValues() {
+		return this.values.clone();
+	}
+}
@@ -3,8 +3,6 @@ package logic;
 import java.util.ArrayList;
 import java.util.TreeSet;
 
-import view.Gomme;
-
 
 /**
  * class used to represent plan. It will provide for a given set of results an action to perform in each result
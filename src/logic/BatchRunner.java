@@ -0,0 +1,308 @@
+package logic;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import data.Level;
+
+/**
+ * class used to play many games of the AI without display, one game per core, and to report their results.
+ * Every game has its own GameEngine and AIContext, seeded with one seed of the range, and plays the maps in a cycle
+ * like PacManLauncher until Pacman has no life left or the number of moves is reached. The report gives, for every
+ * game and for the whole batch, the score, the levels cleared, the moves and the time of the decisions of the AI
+ * (median, 99th percentile and maximum), in CSV or JSON.
+ * By default the AI searches without deadline, each decision on the thread of its game, so that the games do not
+ * compete for the workers of the AI and every game is the same from one run to the next. With --deadline, each game
+ * searches on its own AIContext.WORKERS_PER_GAME workers and at most cores / WORKERS_PER_GAME games are played at a
+ * time; the games then depend on the load of the machine.
+ * With --replays, every game is also recorded in the directory (seed-N.replay, see ReplayPlayer).
+ * With --endgame, the AI follows the shortest tour of the gums below that number of gums (0 switches it off).
+ *
+ * Usage: java logic.BatchRunner [--seeds FIRST-LAST | --seed N --games N] [--maps 1,2,3] [--ticks N] [--threads N]
+ *                              [--deadline ms] [--endgame N] [--format csv|json] [--output file] [--replays directory]
+ */
+public class BatchRunner {
+	private long firstSeed = 1;
+	private long lastSeed = 100;
+	private int[] maps = {1, 2, 3};
+	private int maxTicks = 20000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long deadline = 0;
+	private int endgameThreshold = AIContext.DEFAULT_ENDGAME_THRESHOLD;
+	private boolean json = false;
+	private String outputFile;
+	private String replayDirectory;
+
+	/**
+	 * result of one game
+	 */
+	public static class Report {
+		private long seed;
+		private int score, life, levelsCleared, moves;
+		private long[] latencies;
+
+		Report(long seed, GameEngine engine, int levelsCleared, long[] latencies) {
+			this.seed = seed;
+			this.score = engine.getScore();
+			this.life = engine.getLife();
+			this.levelsCleared = levelsCleared;
+			this.moves = engine.getTicks();
+			this.latencies = latencies;
+			Arrays.sort(this.latencies);
+		}
+
+		public long getSeed() {
+			return this.seed;
+		}
+
+		public int getScore() {
+			return this.score;
+		}
+
+		public int getLife() {
+			return this.life;
+		}
+
+		public int getLevelsCleared() {
+			return this.levelsCleared;
+		}
+
+		public int getMoves() {
+			return this.moves;
+		}
+
+		/**
+		 * return the time of the decisions of the AI, sorted
+		 * @return the time of each decision, in nanoseconds
+		 */
+		public long[] getLatencies() {
+			return this.latencies;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BatchRunner runner = new BatchRunner();
+		Options options = new Options(args, "--seeds", "--seed", "--games", "--maps", "--ticks", "--threads", "--deadline",
+				"--endgame", "--format", "--output", "--replays");
+		runner.firstSeed = options.getSeed(runner.firstSeed);
+		runner.lastSeed = runner.firstSeed + options.getGames((int)(runner.lastSeed - runner.firstSeed + 1)) - 1;
+		runner.maps = options.getMaps(runner.maps);
+		runner.maxTicks = options.getInt("--ticks", runner.maxTicks);
+		runner.threads = options.getThreads();
+		runner.deadline = options.getLong("--deadline", runner.deadline);
+		runner.endgameThreshold = options.getInt("--endgame", runner.endgameThreshold);
+		runner.json = options.getString("--format", "csv").equalsIgnoreCase("json");
+		runner.outputFile = options.getString("--output", null);
+		runner.replayDirectory = options.getString("--replays", null);
+		long elapsedTime = System.currentTimeMillis();
+		ArrayList<Report> reports = runner.run();
+		elapsedTime = System.currentTimeMillis() - elapsedTime;
+		PrintStream out = runner.outputFile == null ? System.out : new PrintStream(runner.outputFile);
+		try {
+			if(runner.json)
+				BatchRunner.writeJson(reports, out);
+			else
+				BatchRunner.writeCsv(reports, out);
+		}
+		finally {
+			if(out != System.out)
+				out.close();
+		}
+		System.err.println(reports.size() + " games in " + elapsedTime / 1000.0 + " s");
+	}
+
+	/**
+	 * play every game of the range of seeds
+	 * @return the report of every game, in the order of the seeds
+	 */
+	public ArrayList<Report> run() throws InterruptedException, ExecutionException {
+		Level[] levels = new Level[this.maps.length];
+		for(int m = 0; m < this.maps.length; m++) {
+			levels[m] = new Level(this.maps[m]);
+		}
+		ArrayList<Callable<Report>> games = new ArrayList<>();
+		for(long seed = this.firstSeed; seed <= this.lastSeed; seed++) {
+			long gameSeed = seed;
+			games.add(() -> this.play(levels, gameSeed));
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(BatchRunner.concurrentGames(this.threads, this.deadline));
+		ArrayList<Report> reports = new ArrayList<>();
+		try {
+			for(Future<Report> future : pool.invokeAll(games)) {
+				reports.add(future.get());
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return reports;
+	}
+
+	/**
+	 * return the number of games played at a time, limited with a deadline so that the search workers of all the
+	 * games fit on the cores (shared by Tournament)
+	 * @param threads the number of games asked (--threads)
+	 * @param deadline the deadline of a decision in milliseconds, 0 or less for none
+	 * @return the number of games played at a time
+	 */
+	static int concurrentGames(int threads, long deadline) {
+		if(deadline <= 0)
+			return threads;
+		return Math.min(threads, Math.max(1, Runtime.getRuntime().availableProcessors() / AIContext.WORKERS_PER_GAME));
+	}
+
+	/**
+	 * play one game
+	 * @param levels the levels of the cycle
+	 * @param seed the seed of the ghosts and of the tie-break of the AI
+	 * @return the report of the game
+	 * @throws IOException if the replay cannot be written
+	 */
+	private Report play(Level[] levels, long seed) throws IOException {
+		GameEngine engine = new GameEngine(levels, seed);
+		ReplayRecorder recorder = null;
+		if(this.replayDirectory != null) {
+			recorder = new ReplayRecorder(Paths.get(this.replayDirectory, "seed-" + seed + ".replay").toString(), engine);
+			engine.addObserver(recorder);
+		}
+		try {
+			AIContext context = new AIContext(seed);
+			context.setDeadline(this.deadline);
+			context.setEndgameThreshold(this.endgameThreshold);
+			context.setFeedbackOutput(null);
+			return BatchRunner.play(engine, Strategy.of(context), seed, this.maxTicks);
+		}
+		finally {
+			if(recorder != null)
+				recorder.close();
+		}
+	}
+
+	/**
+	 * play one game with a strategy, the maps of the engine in a cycle, until Pacman has no life left or the number
+	 * of moves is reached (shared by Tournament)
+	 * @param engine the engine of the game, not started
+	 * @param strategy the strategy choosing the moves of Pacman
+	 * @param seed the seed of the game, for the report
+	 * @param maxTicks the maximum number of moves of Pacman
+	 * @return the report of the game
+	 */
+	static Report play(GameEngine engine, Strategy strategy, long seed, int maxTicks) {
+		long[] latencies = new long[1024];
+		int decisions = 0, levelsCleared = 0;
+		engine.start();
+		while(!engine.isGameOver() && engine.getTicks() < maxTicks) {
+			if(engine.isLevelCleared()) {
+				levelsCleared++;
+				engine.nextLevel();
+				strategy.levelStarted();
+				continue;
+			}
+			long elapsedTime = System.nanoTime();
+			String move = strategy.findNextMove(engine.getVisibleBeliefState().get(0));
+			elapsedTime = System.nanoTime() - elapsedTime;
+			if(decisions == latencies.length)
+				latencies = Arrays.copyOf(latencies, 2 * decisions);
+			latencies[decisions++] = elapsedTime;
+			engine.step(move);
+		}
+		if(engine.isLevelCleared())
+			levelsCleared++;
+		return new Report(seed, engine, levelsCleared, Arrays.copyOf(latencies, decisions));
+	}
+
+	/**
+	 * return a percentile of sorted values (nearest rank)
+	 * @param sorted the values, sorted
+	 * @param percent the percentile, between 0 and 100
+	 * @return the value, 0 if there is none
+	 */
+	static long percentile(long[] sorted, double percent) {
+		if(sorted.length == 0)
+			return 0;
+		int rank = (int)Math.ceil(percent / 100 * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+	}
+
+	private static long[] allLatencies(ArrayList<Report> reports) {
+		int size = 0;
+		for(Report report : reports)
+			size += report.latencies.length;
+		long[] all = new long[size];
+		int index = 0;
+		for(Report report : reports) {
+			System.arraycopy(report.latencies, 0, all, index, report.latencies.length);
+			index += report.latencies.length;
+		}
+		Arrays.sort(all);
+		return all;
+	}
+
+	private static String milliseconds(long nanoseconds) {
+		return String.format(Locale.ROOT, "%.3f", nanoseconds / 1e6);
+	}
+
+	/**
+	 * write one line per game then one line "all" for the whole batch (mean score, mean levels, total moves)
+	 */
+	static void writeCsv(ArrayList<Report> reports, PrintStream out) {
+		out.println("seed,score,life,levels_cleared,moves,latency_p50_ms,latency_p99_ms,latency_max_ms");
+		double score = 0, levels = 0;
+		long moves = 0;
+		for(Report report : reports) {
+			out.println(report.seed + "," + report.score + "," + report.life + "," + report.levelsCleared + "," + report.moves + ","
+					+ milliseconds(percentile(report.latencies, 50)) + "," + milliseconds(percentile(report.latencies, 99)) + ","
+					+ milliseconds(percentile(report.latencies, 100)));
+			score += report.score;
+			levels += report.levelsCleared;
+			moves += report.moves;
+		}
+		long[] all = BatchRunner.allLatencies(reports);
+		out.println("all," + String.format(Locale.ROOT, "%.1f", score / reports.size()) + ",,"
+				+ String.format(Locale.ROOT, "%.2f", levels / reports.size()) + "," + moves + ","
+				+ milliseconds(percentile(all, 50)) + "," + milliseconds(percentile(all, 99)) + "," + milliseconds(percentile(all, 100)));
+	}
+
+	/**
+	 * write an object with the list of the games and the statistics of the whole batch
+	 */
+	static void writeJson(ArrayList<Report> reports, PrintStream out) {
+		out.println("{");
+		out.println("  \"games\": [");
+		double score = 0, levels = 0;
+		long moves = 0;
+		int maxScore = Integer.MIN_VALUE;
+		for(int i = 0; i < reports.size(); i++) {
+			Report report = reports.get(i);
+			out.println("    {\"seed\": " + report.seed + ", \"score\": " + report.score + ", \"life\": " + report.life
+					+ ", \"levelsCleared\": " + report.levelsCleared + ", \"moves\": " + report.moves
+					+ ", \"latencyMs\": " + BatchRunner.jsonLatencies(report.latencies) + "}" + (i + 1 < reports.size() ? "," : ""));
+			score += report.score;
+			levels += report.levelsCleared;
+			moves += report.moves;
+			maxScore = Math.max(maxScore, report.score);
+		}
+		out.println("  ],");
+		out.println("  \"aggregate\": {\"games\": " + reports.size()
+				+ ", \"meanScore\": " + String.format(Locale.ROOT, "%.1f", score / reports.size())
+				+ ", \"maxScore\": " + maxScore
+				+ ", \"meanLevelsCleared\": " + String.format(Locale.ROOT, "%.2f", levels / reports.size())
+				+ ", \"moves\": " + moves
+				+ ", \"latencyMs\": " + BatchRunner.jsonLatencies(BatchRunner.allLatencies(reports)) + "}");
+		out.println("}");
+	}
+
+	private static String jsonLatencies(long[] sorted) {
+		return "{\"p50\": " + milliseconds(percentile(sorted, 50)) + ", \"p99\": " + milliseconds(percentile(sorted, 99))
+				+ ", \"max\": " + milliseconds(percentile(sorted, 100)) + "}";
+	}
+}
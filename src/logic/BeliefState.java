@@ -1,128 +1,53 @@
 package logic;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 //import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Scanner;
 import java.util.TreeSet;
 
-import data.Map;
-import view.Gomme;
-
-/**
- * an object Position correspond to a position in the Pacman grid
- */
-class Position implements Comparable{
-	public int x, y;
-	public char dir;
-
-	/**
-	 * construct a new Object position corresponding to the position of an entity (ghost or pacman) in the grid
-	 * @param x row
-	 * @param y column
-	 * @param dir direction followed by the entity
-	 */
-	public Position(int x, int y, char dir) {
-		this.x = x;
-		this.y = y;
-		this.dir = dir;
-	}
-	
-	/**
-	 * return the row index
-	 * @return the row index
-	 */
-	int getRow() {
-		return this.x;
-	}
-	
-	/**
-	 * return the column index
-	 * @return the column index
-	 */
-	int getColumn() {
-		return this.y;
-	}
-	
-	/**
-	 * return direction (among 'U', 'D', 'L', 'R')
-	 * @return
-	 */
-	char getDirection() {
-		return this.dir;
-	}
-
-	public String toString() {
-		return "(" + this.x + "," + this.y + ") " + this.dir;
-	}
-
-	/**
-	 * construct a copie of a given position
-	 * @param pos
-	 */
-	public Position clone() {
-		return new Position(this.x, this.y, this.dir);
-	}
-	
-	
-	/**
-	 * used to compare two positions
-	 * @return 0 if the two positions are the same
-	 */
-	public int compareTo(Object o) {
-		Position pos = (Position)o;
-		int comp = this.x - pos.x;
-		if(comp != 0)
-			return comp;
-		comp = this.y - pos.y;
-		if(comp != 0)
-			return comp;
-		comp = this.dir - pos.dir;
-		if(comp != 0)
-			return comp;
-		return 0; 
-	}
-}
+import data.DangerTablebase;
+import data.Level;
+import data.MazeTopology;
 
 /**
  * an object BeliefState represents all relevant information about the game.
  */
 public class BeliefState implements Comparable{
-	private char map[][];
+	/** the remaining gums (super gums included), one bit per square of the level that is not a wall (Level.getCellIndex);
+	 *  the array is shared by the copies of the state and replaced, never modified, when a gum is eaten */
+	private long[] gums;
+	/** the remaining super gums, shared like gums */
+	private long[] superGums;
 	private ArrayList<TreeSet<Position>> listPGhost;
 	private Position pacmanPos, pacmanOldPos;
 	private int nbrOfGommes, nbrOfSuperGommes, score, life;
+	/** number of ghosts eaten since the state was created or read, so that a difference of score can be split between gums and ghosts */
+	private int ghostsEaten;
 	private ArrayList<Integer> compteurPeur;
-	private static ArrayList<int[]> gamePositions;
-	private static HashSet<String> visible;
-	private static int pacmanXInit, pacmanYInit;
-	private static ArrayList<int[]> listPGhostInit;
-	private static int tailleCase;
-	private static int taille;
-	
+	private GumDistanceField gumField;
+	private GumDensityTable gumTable;
+	private Level level;
 	
-	public static void setStaticVariables(ArrayList<int[]> gamePositions, HashSet<String> visible, int pacmanXInit, int pacmanYInit, ArrayList<int[]> listPGhostInit, int tailleCase, int taille) {
-		BeliefState.gamePositions = gamePositions;
-		BeliefState.visible = visible;
-		BeliefState.pacmanXInit = pacmanXInit;
-		BeliefState.pacmanYInit = pacmanYInit;
-		BeliefState.listPGhostInit = listPGhostInit;
-		BeliefState.tailleCase = tailleCase;
-		BeliefState.taille = taille;
-	} 
 	/**
-	 * create a new BeliefState object
-	 * @param theMap the current version of the Pacman man discribing the position of (super) gums
+	 * create a state without Pacman nor ghosts
+	 * @param level the level of the state: the squares, the starting positions, the visibility and the topology of the map
 	 * @param score the current score
 	 * @param life the number of remaining lifes for Pacman
+	 * @param gums the remaining gums
+	 * @param superGums the remaining super gums
 	 */
-	public BeliefState(int taille, int score, int life) {
-		BeliefState.taille = taille;
-		this.map = new char[BeliefState.taille][BeliefState.taille];
+	private BeliefState(Level level, int score, int life, long[] gums, long[] superGums) {
+		this.level = level;
+		this.gums = gums;
+		this.superGums = superGums;
 		this.pacmanPos = new Position(0,0,'U');
 		this.pacmanOldPos = this.pacmanPos;
 		this.listPGhost = new ArrayList<TreeSet<Position>>();
@@ -131,6 +56,20 @@ public class BeliefState implements Comparable{
 		this.compteurPeur = new ArrayList<Integer>();
 		this.life = life;
 	}
+
+	/**
+	 * create the state of the beginning of a level
+	 * @param level the level, shared by all the states of the game
+	 * @param score the current score
+	 * @param life the number of remaining lifes for Pacman
+	 */
+	public BeliefState(Level level, int score, int life) {
+		this(level, score, life, new long[(level.getNbrCells() + 63) / 64], new long[(level.getNbrCells() + 63) / 64]);
+		char[][] grid = level.getGrid();
+		for(int[] position: level.getGamePositions()) {
+			this.modifyMap(position[0], position[1], grid[position[0]][position[1]]);
+		}
+	}
 	
 	/*public BeliefState(InputStream in) {
 		Scanner scan = new Scanner(in);
@@ -140,7 +79,7 @@ public class BeliefState implements Comparable{
 		for(int i = 0; i < BeliefState.taille; i++) {
 			String line = scan.nextLine();
 			for(int j = 0; j < BeliefState.taille; j++) {
-				this.map[i][j] = line.charAt(j);
+				this.getMap(i, j) = line.charAt(j);
 			}
 		}
 		int pacmanPosX = scan.nextInt(), pacmanPosY = scan.nextInt();
@@ -207,11 +146,12 @@ public class BeliefState implements Comparable{
 		comp = this.nbrOfSuperGommes - bs.nbrOfSuperGommes;
 		if(comp != 0)
 			return comp;
-		for(int[] pos:BeliefState.gamePositions) {
-			comp = this.map[pos[0]][pos[1]] - bs.map[pos[0]][pos[1]];
-			if(comp != 0)
-				return comp;
-		}
+		comp = Arrays.compare(this.gums, bs.gums);
+		if(comp != 0)
+			return comp;
+		comp = Arrays.compare(this.superGums, bs.superGums);
+		if(comp != 0)
+			return comp;
 		for(int i = 0; i < this.compteurPeur.size(); i++) {
 			comp = this.compteurPeur.get(i) - bs.compteurPeur.get(i);
 			if(comp != 0)
@@ -239,16 +179,15 @@ public class BeliefState implements Comparable{
 	 */
 
 	public BeliefState(BeliefState toCopy, boolean isDead) {
-		this(BeliefState.taille, toCopy.score, toCopy.life);
-		this.pacmanPos.dir = toCopy.pacmanPos.dir;
-		for(int i = 0; i < this.map.length; i++) {
-			for(int j = 0; j < this.map[i].length; j++) {
-				this.modifyMap(i, j, toCopy.map[i][j]);
-			}
-		}
+		this(toCopy.level, toCopy.score, toCopy.life, toCopy.gums, toCopy.superGums);
+		this.nbrOfGommes = toCopy.nbrOfGommes;
+		this.nbrOfSuperGommes = toCopy.nbrOfSuperGommes;
+		this.ghostsEaten = toCopy.ghostsEaten;
+		this.pacmanPos = toCopy.pacmanPos.clone();
 		this.pacmanOldPos = toCopy.pacmanOldPos.clone();
+		this.gumField = toCopy.gumField;
+		this.gumTable = toCopy.gumTable;
 		if(!isDead) {
-			this.listPGhost.clear();
 			for(TreeSet<Position> listP: toCopy.listPGhost) {
 				TreeSet<Position> newListP = new TreeSet<Position>();
 				for(Position pos: listP.descendingSet()) {
@@ -256,23 +195,97 @@ public class BeliefState implements Comparable{
 				}
 				this.listPGhost.add(newListP);
 			}
-			for(int i = 0; i < toCopy.compteurPeur.size(); i++) {
-				this.compteurPeur.set(i, toCopy.compteurPeur.get(i));
-			}
+			this.compteurPeur.addAll(toCopy.compteurPeur);
 		}
 		else {
+			// everybody goes back to the start
 			this.life = toCopy.life - 1;
-			this.moveTo(BeliefState.pacmanYInit / BeliefState.tailleCase, BeliefState.pacmanXInit / BeliefState.tailleCase, 'U');
+			for(int[] ghost: this.level.getGhosts()) {
+				TreeSet<Position> posGhost = new TreeSet<Position>();
+				posGhost.add(new Position(ghost[0], ghost[1], 'U'));
+				this.listPGhost.add(posGhost);
+				this.compteurPeur.add(0);
+			}
+			this.moveTo(this.level.getPacmanRow(), this.level.getPacmanColumn(), 'U');
+		}
+	}
+
+	/**
+	 * write the state without its level (used by GameSnapshot): score, lives, Pacman, the gums and every ghost
+	 * @param out the output
+	 * @throws IOException if the output cannot be written
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeInt(this.score);
+		out.writeInt(this.life);
+		BeliefState.writePosition(out, this.pacmanPos);
+		BeliefState.writePosition(out, this.pacmanOldPos);
+		out.writeInt(this.gums.length);
+		for(int w = 0; w < this.gums.length; w++) {
+			out.writeLong(this.gums[w]);
+			out.writeLong(this.superGums[w]);
+		}
+		out.writeInt(this.listPGhost.size());
+		for(int k = 0; k < this.listPGhost.size(); k++) {
+			out.writeInt(this.compteurPeur.get(k));
+			out.writeInt(this.listPGhost.get(k).size());
+			for(Position pos: this.listPGhost.get(k)) {
+				BeliefState.writePosition(out, pos);
+			}
+		}
+	}
+
+	/**
+	 * read a state written by write
+	 * @param in the input
+	 * @param level the level of the state
+	 * @return the state
+	 * @throws IOException if the input cannot be read or was not written for this level
+	 */
+	static BeliefState read(DataInput in, Level level) throws IOException {
+		int score = in.readInt(), life = in.readInt();
+		Position pacman = BeliefState.readPosition(in), pacmanOld = BeliefState.readPosition(in);
+		int words = in.readInt();
+		if(words != (level.getNbrCells() + 63) / 64)
+			throw new IOException("state of another level");
+		BeliefState state = new BeliefState(level, score, life, new long[words], new long[words]);
+		for(int w = 0; w < words; w++) {
+			state.gums[w] = in.readLong();
+			state.superGums[w] = in.readLong();
+			state.nbrOfGommes += Long.bitCount(state.gums[w]);
+			state.nbrOfSuperGommes += Long.bitCount(state.superGums[w]);
+		}
+		state.pacmanPos = pacman;
+		state.pacmanOldPos = pacmanOld;
+		int ghosts = in.readInt();
+		for(int k = 0; k < ghosts; k++) {
+			state.compteurPeur.add(in.readInt());
+			TreeSet<Position> posGhost = new TreeSet<Position>();
+			for(int n = in.readInt(); n > 0; n--) {
+				posGhost.add(BeliefState.readPosition(in));
+			}
+			state.listPGhost.add(posGhost);
 		}
+		return state;
+	}
+
+	private static void writePosition(DataOutput out, Position pos) throws IOException {
+		out.writeShort(pos.x);
+		out.writeShort(pos.y);
+		out.writeByte(pos.dir);
+	}
+
+	private static Position readPosition(DataInput in) throws IOException {
+		return new Position(in.readShort(), in.readShort(), (char)in.readByte());
 	}
 
 	/**
-	 * update the status of one square
+	 * set the content of one square when the state is created, the arrays of gums must not be shared yet
 	 * @param i row of the square
 	 * @param j column of the square
 	 * @param val value coressponding to the content of the square
 	 */
-	public void modifyMap(int i, int j, char val) {
+	private void modifyMap(int i, int j, char val) {
 		switch(val) {
 		case '.': nbrOfGommes++; break;
 		case '*': nbrOfGommes++; nbrOfSuperGommes++; break;
@@ -280,7 +293,22 @@ public class BeliefState implements Comparable{
 		case 'F': TreeSet<Position> posGhost = new TreeSet<Position>(); Position pos = new Position(i, j, 'U'); posGhost.add(pos); this.listPGhost.add(posGhost); this.compteurPeur.add(0);  break;
 		case 'B': this.pacmanPos.x = i;this.pacmanPos.y = j; TreeSet<Position> posGhost2 = new TreeSet<Position>(); Position pos2 = new Position(i, j, 'U'); posGhost2.add(pos2); this.listPGhost.add(posGhost2); this.compteurPeur.add(0); break;
 		}
-		this.map[i][j] = val;
+		int cell = this.level.getCellIndex(i, j);
+		if(cell >= 0) {
+			BeliefState.setBit(this.gums, cell, val == '.' || val == '*');
+			BeliefState.setBit(this.superGums, cell, val == '*');
+		}
+	}
+
+	private static void setBit(long[] bits, int index, boolean value) {
+		if(value)
+			bits[index >> 6] |= 1L << index;
+		else
+			bits[index >> 6] &= ~(1L << index);
+	}
+
+	private static boolean getBit(long[] bits, int index) {
+		return (bits[index >> 6] & 1L << index) != 0;
 	}
 
 	/**
@@ -300,15 +328,15 @@ public class BeliefState implements Comparable{
 		BeliefState stateRemoved = null;
 		ArrayList<BeliefState> listAlternativeBeliefState = new ArrayList<BeliefState>();
 		BeliefState currentBeliefState = null;
-		char currentPos = this.map[this.pacmanPos.x][this.pacmanPos.y];
+		char currentPos = this.getMap(this.pacmanPos.x, this.pacmanPos.y);
 		switch(toward.charAt(0)) {
 		case 'U': if(pacmanPos.x > 0) {
-			char nextPos = this.map[this.pacmanPos.x - 1][this.pacmanPos.y];
+			char nextPos = this.getMap(this.pacmanPos.x - 1, this.pacmanPos.y);
 			if(nextPos != '#') {
 				currentBeliefState = this.move(-1, 0, nextPos, 'U');
 				if(nextPos == '*') {
 					for(int i = 0; i < currentBeliefState.compteurPeur.size(); i++) {
-						currentBeliefState.compteurPeur.set(i, Ghost.TIME_PEUR);
+						currentBeliefState.compteurPeur.set(i, GameEngine.TIME_PEUR);
 					}
 				}
 			}
@@ -318,13 +346,13 @@ public class BeliefState implements Comparable{
 		} else {
 			currentBeliefState = this.move(0, 0, currentPos, 'U');
 		} break;
-		case 'D': if(this.pacmanPos.x + 1 < this.map.length) {
-			char nextPos = this.map[this.pacmanPos.x + 1][this.pacmanPos.y];
+		case 'D': if(this.pacmanPos.x + 1 < this.level.getRows()) {
+			char nextPos = this.getMap(this.pacmanPos.x + 1, this.pacmanPos.y);
 			if(nextPos != '#') {
 				currentBeliefState = this.move(1, 0, nextPos, 'D');
 				if(nextPos == '*') {
 					for(int i = 0; i < currentBeliefState.compteurPeur.size(); i++) {
-						currentBeliefState.compteurPeur.set(i, Ghost.TIME_PEUR);
+						currentBeliefState.compteurPeur.set(i, GameEngine.TIME_PEUR);
 					}
 				}
 			}
@@ -336,12 +364,12 @@ public class BeliefState implements Comparable{
 			currentBeliefState = this.move(0, 0, currentPos, 'D');
 		} break;
 		case 'L': if(this.pacmanPos.y > 0) {
-			char nextPos = this.map[this.pacmanPos.x][this.pacmanPos.y - 1];
+			char nextPos = this.getMap(this.pacmanPos.x, this.pacmanPos.y - 1);
 			if(nextPos != '#') {
 				currentBeliefState = this.move(0, -1, nextPos, 'L');
 				if(nextPos == '*') {
 					for(int i = 0; i < currentBeliefState.compteurPeur.size(); i++) {
-						currentBeliefState.compteurPeur.set(i, Ghost.TIME_PEUR);
+						currentBeliefState.compteurPeur.set(i, GameEngine.TIME_PEUR);
 					}
 				}
 			}
@@ -352,13 +380,13 @@ public class BeliefState implements Comparable{
 		else{
 			currentBeliefState = this.move(0, 0, currentPos, 'L');
 		} break;
-		case 'R': if(this.pacmanPos.y + 1 < this.map[0].length) {
-			char nextPos = this.map[this.pacmanPos.x][this.pacmanPos.y + 1];
+		case 'R': if(this.pacmanPos.y + 1 < this.level.getColumns()) {
+			char nextPos = this.getMap(this.pacmanPos.x, this.pacmanPos.y + 1);
 			if(nextPos != '#') {
 				currentBeliefState = this.move(0, 1, nextPos, 'R');
 				if(nextPos == '*') {
 					for(int i = 0; i < currentBeliefState.compteurPeur.size(); i++) {
-						currentBeliefState.compteurPeur.set(i, Ghost.TIME_PEUR);
+						currentBeliefState.compteurPeur.set(i, GameEngine.TIME_PEUR);
 					}
 				}
 			}
@@ -402,7 +430,7 @@ public class BeliefState implements Comparable{
 					while(itPos.hasNext()) {//pour chauqe position possible du ghost
 						Position posG = itPos.next();
 						boolean haveMoved = false;
-						if(BeliefState.isVisible(posG.x, posG.y, this.pacmanPos.x, this.pacmanPos.y) && compteurPeur == 0) {//si le ghost est visible et n'est pas effraye
+						if(this.isVisible(posG.x, posG.y, this.pacmanPos.x, this.pacmanPos.y) && compteurPeur == 0) {//si le ghost est visible et n'est pas effraye
 							/*if(posGhost.size() > 1) {
 								Position newPos = posG.clone();
 								BeliefState actualBeliefState = new BeliefState(state, false);
@@ -487,19 +515,19 @@ public class BeliefState implements Comparable{
 						else {//si le ghost n'est pas visible ou qu'il a peur
 							ArrayList<Position> caseAround =  new ArrayList<Position>();//on regarde quelles sont les mouvement possibles pour le ghost
 							boolean rightAvailable = false, leftAvailable = false, upAvailable = false, downAvailable = false;
-							if(posG.x > 0 && state.map[posG.x - 1][posG.y] != '#') {
+							if(posG.x > 0 && state.getMap(posG.x - 1, posG.y) != '#') {
 								caseAround.add(new Position(posG.x - 1, posG.y, 'U'));
 								upAvailable = true;
 							}
-							if(posG.x + 1 < state.map.length && state.map[posG.x + 1][posG.y] != '#') {
+							if(posG.x + 1 < state.level.getRows() && state.getMap(posG.x + 1, posG.y) != '#') {
 								caseAround.add(new Position(posG.x + 1, posG.y, 'D'));
 								downAvailable = true;
 							}
-							if(posG.y > 0 && state.map[posG.x][posG.y - 1] != '#') {
+							if(posG.y > 0 && state.getMap(posG.x, posG.y - 1) != '#') {
 								caseAround.add(new Position(posG.x, posG.y - 1, 'L'));
 								leftAvailable = true;
 							}
-							if(posG.y + 1 < state.map[0].length && state.map[posG.x][posG.y + 1] != '#') {
+							if(posG.y + 1 < state.level.getColumns() && state.getMap(posG.x, posG.y + 1) != '#') {
 								caseAround.add(new Position(posG.x, posG.y + 1, 'R'));
 								rightAvailable = true;
 							}
@@ -517,12 +545,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -530,7 +559,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -553,12 +582,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -566,7 +596,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -595,12 +625,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -608,7 +639,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -631,12 +662,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -644,7 +676,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -674,12 +706,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -687,7 +720,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -710,12 +743,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -723,7 +757,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -752,12 +786,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -765,7 +800,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -788,12 +823,13 @@ public class BeliefState implements Comparable{
 													stateRemoved = new BeliefState(state, true);
 											}
 											else {//si le ghost etait dans un etat de peur alors il a ete mange
-												newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');
+												newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.compteurPeur.set(k, 0);
 												actualBeliefState.listPGhost.get(k).add(newPos);
-												actualBeliefState.score += Ghost.SCORE_FANTOME;
+												actualBeliefState.score += GameEngine.SCORE_FANTOME;
+												actualBeliefState.ghostsEaten++;
 												if(!hAlternativePos.contains(newPos.toString())) {
 													tempListAlternativeBeliefState.add(actualBeliefState);
 													hAlternativePos.add(newPos.toString());
@@ -801,7 +837,7 @@ public class BeliefState implements Comparable{
 											}
 										}
 										else {
-											if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+											if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 												BeliefState actualBeliefState = new BeliefState(state, false);
 												actualBeliefState.listPGhost.get(k).clear();
 												actualBeliefState.listPGhost.get(k).add(newPos);
@@ -830,19 +866,20 @@ public class BeliefState implements Comparable{
 							}
 							if(compteurPeur > 0) {//si le ghost est en etat de peur
 								if((newPos.x == state.pacmanPos.x && newPos.y == state.pacmanPos.y) || (posG.x == state.pacmanPos.x && posG.y == state.pacmanPos.y && newPos.x == this.pacmanPos.x && newPos.y == this.pacmanPos.y)) {//si il se trouve sur la meme case que Pacman ou si ils se sont croises
-									newPos = new Position(BeliefState.listPGhostInit.get(k)[1] / BeliefState.tailleCase, BeliefState.listPGhostInit.get(k)[0] / BeliefState.tailleCase,'U');//le ghost a ete mange
+									newPos = new Position(this.level.getGhosts().get(k)[0], this.level.getGhosts().get(k)[1],'U');//le ghost a ete mange
 									BeliefState actualBeliefState = new BeliefState(state, false);
 									actualBeliefState.listPGhost.get(k).clear();
 									actualBeliefState.compteurPeur.set(k, 0);
 									actualBeliefState.listPGhost.get(k).add(newPos);
-									actualBeliefState.score += Ghost.SCORE_FANTOME;
+									actualBeliefState.score += GameEngine.SCORE_FANTOME;
+									actualBeliefState.ghostsEaten++;
 									if(!hAlternativePos.contains(newPos.toString())) {
 										tempListAlternativeBeliefState.add(actualBeliefState);
 										hAlternativePos.add(newPos.toString());
 									}
 								}
 								else {
-									if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+									if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 										BeliefState actualBeliefState = new BeliefState(state, false);
 										actualBeliefState.listPGhost.get(k).clear();
 										actualBeliefState.listPGhost.get(k).add(newPos);
@@ -862,7 +899,7 @@ public class BeliefState implements Comparable{
 										stateRemoved = new BeliefState(state, true);
 								}
 								else {
-									if(BeliefState.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
+									if(this.isVisible(newPos.x, newPos.y, state.pacmanPos.x, state.pacmanPos.y)) {
 										BeliefState actualBeliefState = new BeliefState(state, false);
 										actualBeliefState.listPGhost.get(k).clear();
 										actualBeliefState.listPGhost.get(k).add(newPos);
@@ -904,7 +941,7 @@ public class BeliefState implements Comparable{
 			return plans;
 		ArrayList<String> listNull = new ArrayList<String>();
 		if(pacmanPos.x > 0) {
-			char nextPos = this.map[this.pacmanPos.x - 1][this.pacmanPos.y];
+			char nextPos = this.getMap(this.pacmanPos.x - 1, this.pacmanPos.y);
 			if(nextPos != '#') {
 				ArrayList<String> listUp = new ArrayList<String>();
 				listUp.add(PacManLauncher.UP);
@@ -914,8 +951,8 @@ public class BeliefState implements Comparable{
 				listNull.add(PacManLauncher.UP);
 			}
 		}
-		if(this.pacmanPos.x + 1 < this.map.length) {
-			char nextPos = this.map[this.pacmanPos.x + 1][this.pacmanPos.y];
+		if(this.pacmanPos.x + 1 < this.level.getRows()) {
+			char nextPos = this.getMap(this.pacmanPos.x + 1, this.pacmanPos.y);
 			if(nextPos != '#') {
 				ArrayList<String> listDown = new ArrayList<String>();
 				listDown.add(PacManLauncher.DOWN);
@@ -926,7 +963,7 @@ public class BeliefState implements Comparable{
 			}
 		}
 		if(this.pacmanPos.y > 0) {
-			char nextPos = this.map[this.pacmanPos.x][this.pacmanPos.y - 1];
+			char nextPos = this.getMap(this.pacmanPos.x, this.pacmanPos.y - 1);
 			if(nextPos != '#') {
 				ArrayList<String> listLeft = new ArrayList<String>();
 				listLeft.add(PacManLauncher.LEFT);
@@ -936,8 +973,8 @@ public class BeliefState implements Comparable{
 				listNull.add(PacManLauncher.LEFT);
 			}
 		}
-		if(this.pacmanPos.y + 1 < this.map[0].length) {
-			char nextPos = this.map[this.pacmanPos.x][this.pacmanPos.y + 1];
+		if(this.pacmanPos.y + 1 < this.level.getColumns()) {
+			char nextPos = this.getMap(this.pacmanPos.x, this.pacmanPos.y + 1);
 			if(nextPos != '#') {
 				ArrayList<String> listRight = new ArrayList<String>();
 				listRight.add(PacManLauncher.RIGHT);
@@ -952,6 +989,114 @@ public class BeliefState implements Comparable{
 		return plans;
 	}
 
+	/**
+	 * create all possible states resulting from all possible macro-actions of Pacman.
+	 * A macro-action starts with one of the four moves and then follows the corridor until the next decision point
+	 * (see extendsBeliefStateMacro(String, int)). Bumping into a wall is kept as a single step waiting action.
+	 * @param maxLength maximum number of squares travelled by one macro-action
+	 * @return a plan, which is a list of belief states, on per set of first actions resulting to the same belief states
+	 */
+	public Plans extendsBeliefStateMacro(int maxLength) {
+		Plans plans = new Plans();
+		if(this.life <= 0)
+			return plans;
+		ArrayList<String> listNull = new ArrayList<String>();
+		String[] directions = {PacManLauncher.UP, PacManLauncher.DOWN, PacManLauncher.LEFT, PacManLauncher.RIGHT};
+		for(String toward: directions) {
+			if(this.isOpen(this.pacmanPos.x, this.pacmanPos.y, toward.charAt(0))) {
+				ArrayList<String> list = new ArrayList<String>();
+				list.add(toward);
+				plans.addPlan(this.extendsBeliefStateMacro(toward, maxLength), list);
+			}
+			else {
+				listNull.add(toward);
+			}
+		}
+		if(listNull.size() > 0)
+			plans.addPlan(this.extendsBeliefState(listNull.get(0)), listNull);
+		return plans;
+	}
+
+	/**
+	 * create all possible states resulting from a macro-action of Pacman: one step toward the given direction,
+	 * then Pacman keeps following the corridor (squares with exactly two exits) until he reaches a junction or a dead end.
+	 * The ghosts belief is propagated at each square. The corridor is left early as soon as the belief splits
+	 * (a ghost becomes visible), Pacman dies or maxLength squares have been travelled, so the caller can decide again.
+	 * @param toward first direction taken by Pacman (PacmanLuncher.UP/DOWN/LEFT/RIGHT)
+	 * @param maxLength maximum number of squares travelled
+	 * @return list of possible states at the end of the macro-action
+	 */
+	public Result extendsBeliefStateMacro(String toward, int maxLength) {
+		Result result = this.extendsBeliefState(toward);
+		char dir = toward.charAt(0);
+		int length = 1;
+		while(length < maxLength && result.size() == 1) {
+			BeliefState state = result.getBeliefState(0);
+			if(state.life < this.life || state.nbrOfGommes == 0)
+				break;
+			dir = state.nextCorridorDirection(dir);
+			if(dir == 0)
+				break;
+			result = state.extendsBeliefState(BeliefState.directionName(dir));
+			length++;
+		}
+		return result;
+	}
+
+	/**
+	 * return the direction to follow to stay in the corridor where Pacman is
+	 * @param from direction Pacman used to enter the current square ('U', 'D', 'L', 'R')
+	 * @return the direction of the only exit that is not the way back, 0 if the square is not a corridor
+	 */
+	private char nextCorridorDirection(char from) {
+		char back = BeliefState.opposite(from), next = 0;
+		int exits = 0;
+		for(char d: new char[] {'U', 'D', 'L', 'R'}) {
+			if(this.isOpen(this.pacmanPos.x, this.pacmanPos.y, d)) {
+				exits++;
+				if(d != back)
+					next = d;
+			}
+		}
+		return exits == 2 ? next : 0;
+	}
+
+	/**
+	 * check whether the square next to a given square in a given direction is not a wall
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @param dir direction ('U', 'D', 'L', 'R')
+	 * @return true if an entity can move from the square toward the direction
+	 */
+	private boolean isOpen(int i, int j, char dir) {
+		switch(dir) {
+		case 'U': return i > 0 && this.getMap(i - 1, j) != '#';
+		case 'D': return i + 1 < this.level.getRows() && this.getMap(i + 1, j) != '#';
+		case 'L': return j > 0 && this.getMap(i, j - 1) != '#';
+		case 'R': return j + 1 < this.level.getColumns() && this.getMap(i, j + 1) != '#';
+		}
+		return false;
+	}
+
+	private static char opposite(char dir) {
+		switch(dir) {
+		case 'U': return 'D';
+		case 'D': return 'U';
+		case 'L': return 'R';
+		case 'R': return 'L';
+		}
+		return 0;
+	}
+
+	private static String directionName(char dir) {
+		switch(dir) {
+		case 'U': return PacManLauncher.UP;
+		case 'D': return PacManLauncher.DOWN;
+		case 'L': return PacManLauncher.LEFT;
+		default: return PacManLauncher.RIGHT;
+		}
+	}
+
 	/**
 	 * remove from a list of states all the states where a given ghost is not (possibly) at a given position provided as input
 	 * @param listBeliefState list of state to be updated
@@ -983,27 +1128,20 @@ public class BeliefState implements Comparable{
 	 */
 	public BeliefState move(int i, int j, char nextPos, char move) {
 		BeliefState nextBeliefState = new BeliefState(this, false);
-		if(nextBeliefState.map[nextBeliefState.pacmanPos.x][nextBeliefState.pacmanPos.y] == 'B')
-			nextBeliefState.map[nextBeliefState.pacmanPos.x][nextBeliefState.pacmanPos.y] = 'F';
-		else
-			nextBeliefState.map[nextBeliefState.pacmanPos.x][nextBeliefState.pacmanPos.y] = 'O';
 		nextBeliefState.pacmanPos.x += i;
 		nextBeliefState.pacmanPos.y += j;
 		nextBeliefState.pacmanPos.dir = move;
 		if(nextPos == '*' || nextPos == '.') {
+			nextBeliefState.eatGum();
 			nextBeliefState.nbrOfGommes--;
-			nextBeliefState.score += Gomme.SCORE_GOMME;
+			nextBeliefState.score += GameEngine.SCORE_GOMME;
 			if(nextPos == '*') {
 				nextBeliefState.nbrOfSuperGommes--;
 				for(int k = 0; k < nextBeliefState.compteurPeur.size(); k++) {
-					nextBeliefState.compteurPeur.set(k, Ghost.TIME_PEUR);
+					nextBeliefState.compteurPeur.set(k, GameEngine.TIME_PEUR);
 				}
 			}
 		}
-		if(nextBeliefState.map[nextBeliefState.pacmanPos.x][nextBeliefState.pacmanPos.y] == 'F')
-			nextBeliefState.map[nextBeliefState.pacmanPos.x][nextBeliefState.pacmanPos.y] = 'B';
-		else
-			nextBeliefState.map[nextBeliefState.pacmanPos.x][nextBeliefState.pacmanPos.y] = 'P';
 		nextBeliefState.pacmanOldPos = this.pacmanPos.clone();
 		return nextBeliefState;
 	}
@@ -1017,30 +1155,23 @@ public class BeliefState implements Comparable{
 	 */
 	public boolean move(int i, int j, char move) {
 		this.pacmanOldPos = this.pacmanPos.clone();
-		if(this.map[this.pacmanPos.x + i][this.pacmanPos.y + j] != '#') {
-			if(this.map[this.pacmanPos.x][this.pacmanPos.y] == 'B')
-				this.map[this.pacmanPos.x][this.pacmanPos.y] = 'F';
-			else
-				this.map[this.pacmanPos.x][this.pacmanPos.y] = 'O';
+		if(!this.level.isWall(this.pacmanPos.x + i, this.pacmanPos.y + j)) {
 			this.pacmanPos.x += i;
 			this.pacmanPos.y += j;
 			this.pacmanPos.dir = move;
 			int l = 0;
-			char nextPos = this.map[this.pacmanPos.x][this.pacmanPos.y];
-			if(nextPos != 'O' && nextPos != 'F') {
+			char nextPos = this.getMap(this.pacmanPos.x, this.pacmanPos.y);
+			if(nextPos == '.' || nextPos == '*') {
+				this.eatGum();
 				this.nbrOfGommes--;
-				this.score += Gomme.SCORE_GOMME;
+				this.score += GameEngine.SCORE_GOMME;
 				if(nextPos == '*') {
 					this.nbrOfSuperGommes--;
 					for(int k = 0; k < this.compteurPeur.size(); k++) {
-						this.compteurPeur.set(k, Ghost.TIME_PEUR);
+						this.compteurPeur.set(k, GameEngine.TIME_PEUR);
 					}
 				}
 			}
-			if(nextPos == 'F')
-				this.map[this.pacmanPos.x][this.pacmanPos.y] = 'B';
-			else
-				this.map[this.pacmanPos.x][this.pacmanPos.y] = 'P';
 			for(TreeSet<Position> treeSet: this.listPGhost) {
 				if(this.compteurPeur.get(l++) == 0 && treeSet.size() == 1) {
 					Position pos = treeSet.first();
@@ -1063,17 +1194,9 @@ public class BeliefState implements Comparable{
 	 * @param move direction of the pacman
 	 */
 	public void moveTo(int i, int j, char move) {
-		if(this.map[this.pacmanPos.x][this.pacmanPos.y] == 'B')
-			this.map[this.pacmanPos.x][this.pacmanPos.y] = 'F';
-		else
-			this.map[this.pacmanPos.x][this.pacmanPos.y] = 'O';
 		this.pacmanPos.x = i;
 		this.pacmanPos.y = j;
 		this.pacmanPos.dir = move;
-		if(this.map[this.pacmanPos.x][this.pacmanPos.y] == 'F')
-			this.map[this.pacmanPos.x][this.pacmanPos.y] = 'B';
-		else
-			this.map[this.pacmanPos.x][this.pacmanPos.y] = 'P';
 		this.pacmanOldPos = this.pacmanPos.clone();
 	}
 
@@ -1098,9 +1221,10 @@ public class BeliefState implements Comparable{
 		}
 		if(compteurPeur > 0) {//si le ghost est en etat de peur
 			if((posGhost.x + i == this.pacmanPos.x && posGhost.y + j == this.pacmanPos.y) || (posGhost.x == this.pacmanPos.x && posGhost.y == this.pacmanPos.y && posPcopy.x == posGhost.x + i && posPcopy.y == posGhost.y + j)) {//si le ghost et le Pacman se sont croise ou que le ghost va sur la case du Pacman
-				int[] initPosG = BeliefState.listPGhostInit.get(k);//le ghost est mange
-				this.moveGhostTo(initPosG[1] /  BeliefState.tailleCase, initPosG[0] / BeliefState.tailleCase, k, 'U');
-				this.score += Ghost.SCORE_FANTOME;
+				int[] initPosG = this.level.getGhosts().get(k);//le ghost est mange
+				this.moveGhostTo(initPosG[0], initPosG[1], k, 'U');
+				this.score += GameEngine.SCORE_FANTOME;
+				this.ghostsEaten++;
 				return -1;
 			}			
 			this.compteurPeur.set(k, compteurPeur - 2);
@@ -1114,10 +1238,10 @@ public class BeliefState implements Comparable{
 		else {//si le ghost n'est pas en etat de peur
 			if((posGhost.x + i == this.pacmanPos.x && posGhost.y + j == this.pacmanPos.y) || (posGhost.x == this.pacmanPos.x && posGhost.y == this.pacmanPos.y && posPcopy.x == posGhost.x + i && posPcopy.y == posGhost.y + j)) {//si le ghost et le Pacman se sont croise ou que le ghost va sur la case du Pacman
 				this.life--;//alors Pacman meurt
-				this.moveTo(BeliefState.pacmanYInit / BeliefState.tailleCase, BeliefState.pacmanXInit / BeliefState.tailleCase, 'U');
-				for(int l = 0; l < BeliefState.listPGhostInit.size(); l++) {
-					int[] initPosG = BeliefState.listPGhostInit.get(l);
-					this.moveGhostTo(initPosG[1] / BeliefState.tailleCase, initPosG[0] / BeliefState.tailleCase, l, 'U');
+				this.moveTo(this.level.getPacmanRow(), this.level.getPacmanColumn(), 'U');
+				for(int l = 0; l < this.level.getGhosts().size(); l++) {
+					int[] initPosG = this.level.getGhosts().get(l);
+					this.moveGhostTo(initPosG[0], initPosG[1], l, 'U');
 				}
 				return 1;
 			}
@@ -1149,12 +1273,14 @@ public class BeliefState implements Comparable{
 
 	public String toString() {
 		String s = new String();
-		for(int i = 0; i < this.map.length; i++) {
-			for(int j = 0; j < this.map[0].length; j++) {
-				s += this.map[i][j];
+		StringBuilder squares = new StringBuilder();
+		for(int i = 0; i < this.level.getRows(); i++) {
+			for(int j = 0; j < this.level.getColumns(); j++) {
+				squares.append(i == this.pacmanPos.x && j == this.pacmanPos.y ? 'P' : this.getMap(i, j));
 			}
-			s += '\n';
+			squares.append('\n');
 		}
+		s += squares;
 		s += "Pacman (" + this.pacmanPos.x + ", " + this.pacmanPos.y + ", " + this.pacmanPos.dir + ") "+ this.score +"\n";
 		for(int i = 0; i < this.listPGhost.size(); i++) {
 			s += "Ghost " + i + " (" + this.listPGhost.get(i).size() + ") [" + this.compteurPeur.get(i) + "]";
@@ -1172,9 +1298,9 @@ public class BeliefState implements Comparable{
 	
 	/*public void save(PrintStream out) {
 		out.println(BeliefState.taille);
-		for(int i = 0; i < this.map.length; i++) {
-			for(int j = 0; j < this.map[0].length; j++) {
-				out.print(this.map[i][j]);
+		for(int i = 0; i < this.level.getRows(); i++) {
+			for(int j = 0; j < this.level.getColumns(); j++) {
+				out.print(this.getMap(i, j));
 			}
 			out.println("");
 		}
@@ -1234,6 +1360,13 @@ public class BeliefState implements Comparable{
 	public int getLife() {
 		return this.life;
 	}
+
+	/**
+	 * give one more life to Pacman (each GameEngine.PALIER points)
+	 */
+	void gainLife() {
+		this.life++;
+	}
 	
 	/**
 	 * return the number of remaining gums in the map
@@ -1243,6 +1376,14 @@ public class BeliefState implements Comparable{
 		return this.nbrOfGommes;
 	}
 	
+	/**
+	 * return the number of ghosts eaten since the state was created
+	 * @return the number of ghosts eaten, only the difference between two states of the same game is meaningful
+	 */
+	int getGhostsEaten() {
+		return this.ghostsEaten;
+	}
+	
 	/**
 	 * return the number of remaining super gums in the map
 	 * @return the number of remaining super gums in the map
@@ -1263,12 +1404,39 @@ public class BeliefState implements Comparable{
 		return this.compteurPeur.get(i);
 	}
 	
+	/**
+	 * return the content of a square
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @return '#' for a wall (or outside of the map), '*' for a super gum, '.' for a gum, 'O' for an empty square
+	 */
 	public char getMap(int i, int j) {
-		return this.map[i][j];
+		int cell = this.level.getCellIndex(i, j);
+		if(cell < 0)
+			return '#';
+		if(!BeliefState.getBit(this.gums, cell))
+			return 'O';
+		return BeliefState.getBit(this.superGums, cell) ? '*' : '.';
 	}
-	
-	public char[][] getMap(){
-		return this.map;
+
+	/**
+	 * check whether a gum (or a super gum) remains on a square
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @return true if there is a gum on the square
+	 */
+	public boolean hasGum(int i, int j) {
+		int cell = this.level.getCellIndex(i, j);
+		return cell >= 0 && BeliefState.getBit(this.gums, cell);
+	}
+
+	/**
+	 * check whether a gum (or a super gum) remains on a square
+	 * @param cell index of the square (Level.getCellIndex)
+	 * @return true if there is a gum on the square
+	 */
+	boolean hasGum(int cell) {
+		return BeliefState.getBit(this.gums, cell);
 	}
 	
 	public Position getPacmanPosition() {
@@ -1282,75 +1450,90 @@ public class BeliefState implements Comparable{
 	public TreeSet<Position> getGhostPositions(int i){
 		return this.listPGhost.get(i);
 	}
-	public static boolean isVisible(int row1, int column1, int row2, int column2) {
-		//System.out.println("isVisible " + row1 + "," + column1 + ";" + row2 + "," + column2);
-		if(row1 == row2) {
-			//System.out.println("row " + row1 + " columns " + column1 + "," + column2);
-			return BeliefState.visible.contains(row1+","+Math.min(column1,column2)+";"+row2+","+Math.max(column1, column2));
-		}
-		if(column1 == column2) {
-			//System.out.println("column " + column1 + " rows " + row1 + "," + row2);
-			return BeliefState.visible.contains(Math.min(row1, row2)+","+column1+";"+Math.max(row1, row2)+","+column2);
-		}
-		return false;
+	/**
+	 * return the level of the state, shared by all the states of the game
+	 * @return the level being played
+	 */
+	public Level getLevel() {
+		return this.level;
+	}
+
+	/**
+	 * return the topology of the current map (exits, dead ends, junctions, articulation points)
+	 * @return the topology of the current map
+	 */
+	public MazeTopology getTopology() {
+		return this.level.getTopology();
+	}
+
+	/**
+	 * return the table of the positions lost against one ghost, computed offline by data.DangerTablebase
+	 * @return the table of the current map, null if it has not been computed
+	 */
+	public DangerTablebase getTablebase() {
+		return this.level.getTablebase();
+	}
+
+	/**
+	 * check whether two squares see each other (same row or same column, no wall between them)
+	 * @return true if the squares see each other
+	 */
+	public boolean isVisible(int row1, int column1, int row2, int column2) {
+		return this.level.isVisible(row1, column1, row2, column2);
 	}
 	
+	/**
+	 * return the maze distance between Pacman and the nearest remaining gum
+	 * @return the distance, Integer.MAX_VALUE if no gum can be reached
+	 */
 	public int distanceMinToGum() {
-		LinkedList<int[]> queue = new LinkedList<int[]>();
-		HashSet<String> visited = new HashSet<String>();
-		int[] posP = new int[3];
-		posP[0] = this.pacmanPos.x;
-		posP[1] = this.pacmanPos.y;
-		posP[2] = 0;
-		queue.add(posP);
-		while(!queue.isEmpty()) {
-			int[] next = queue.pollFirst();
-			visited.add(next[0] + "," + next[1]);
-			if(next[0] > 0) {
-				if(!visited.contains((next[0] - 1) + "," + next[1])) {
-					char content = this.map[next[0] - 1][next[1]];
-					switch(content) {
-					case '.':
-					case '*': return next[2] + 1;
-					case '#': break;
-					default: int[] neighbor = {next[0] - 1, next[1], next[2] + 1}; queue.add(neighbor);
-					}
-				}
-			}
-			if(next[0] < BeliefState.taille - 1) {
-				if(!visited.contains((next[0] + 1) + "," + next[1])) {
-					char content = this.map[next[0] + 1][next[1]];
-					switch(content) {
-					case '.':
-					case '*': return next[2] + 1;
-					case '#': break;
-					default: int[] neighbor = {next[0] + 1, next[1], next[2] + 1}; queue.add(neighbor);
-					}
-				}
-			}
-			if(next[1] > 0) {
-				if(!visited.contains(next[0] + "," + (next[1] - 1))) {
-					char content = this.map[next[0]][next[1] - 1];
-					switch(content) {
-					case '.':
-					case '*': return next[2] + 1;
-					case '#': break;
-					default: int[] neighbor = {next[0], next[1] - 1, next[2] + 1}; queue.add(neighbor);
-					}
-				}
-			}
-			if(next[1] < BeliefState.taille - 1) {
-				if(!visited.contains(next[0] + "," + (next[1] + 1))) {
-					char content = this.map[next[0]][next[1] + 1];
-					switch(content) {
-					case '.':
-					case '*': return next[2] + 1;
-					case '#': break;
-					default: int[] neighbor = {next[0], next[1] + 1, next[2] + 1}; queue.add(neighbor);
-					}
-				}
-			}
+		return this.getGumField().getDistance(this.pacmanPos.x, this.pacmanPos.y);
+	}
+
+	/**
+	 * build the distance field and the density table of the gums if the state has none yet; its copies and the states
+	 * that result from its moves share them and update them gum by gum, so they are built once per level
+	 * (GameEngine.startLevel) rather than by every search
+	 */
+	void buildGumFields() {
+		this.getGumField();
+		this.getGumTable();
+	}
+
+	/**
+	 * return the distance field to the nearest gum, built on first use and then shared with the copies of the state
+	 * @return the distance field to the nearest gum
+	 */
+	GumDistanceField getGumField() {
+		if(this.gumField == null)
+			this.gumField = new GumDistanceField(this);
+		return this.gumField;
+	}
+
+	/**
+	 * return the summed-area table of the gums, built on first use and then shared with the copies of the state
+	 * @return the summed-area table of the gums
+	 */
+	GumDensityTable getGumTable() {
+		if(this.gumTable == null)
+			this.gumTable = new GumDensityTable(this);
+		return this.gumTable;
+	}
+
+	/**
+	 * update the distance field and the density table when Pacman eats the gum of his current square
+	 */
+	private void eatGum() {
+		int cell = this.level.getCellIndex(this.pacmanPos.x, this.pacmanPos.y);
+		this.gums = this.gums.clone();
+		BeliefState.setBit(this.gums, cell, false);
+		if(BeliefState.getBit(this.superGums, cell)) {
+			this.superGums = this.superGums.clone();
+			BeliefState.setBit(this.superGums, cell, false);
 		}
-		return Integer.MAX_VALUE;
+		if(this.gumField != null)
+			this.gumField = this.gumField.withoutGum(this, cell);
+		if(this.gumTable != null)
+			this.gumTable = this.gumTable.withoutGum(this.pacmanPos.x, this.pacmanPos.y);
 	}
 }
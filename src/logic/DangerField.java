@@ -0,0 +1,161 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import data.DangerTablebase;
+import data.Level;
+
+/**
+ * class used to summarize, for every square of the map, the threat of the dangerous (not frightened) ghosts.
+ * It is computed once per decision from the root belief state, then every leaf of the search reads it in constant time,
+ * whatever the number of possible positions of the ghosts.
+ * When the level has a tablebase with lost positions (data.DangerTablebase), the field also holds for every square the
+ * forced capture: the tablebase probed against every possible position of the ghosts.
+ * The arrays only hold the squares that are not walls (Level.getCellIndex), the neighbors come from the level.
+ */
+class DangerField {
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+	/** the proximity of a possible ghost position is counted up to this maze distance (excluded) */
+	public static final int PROXIMITY_RANGE = 3;
+
+	private Level level;
+	private int[] farthest;
+	private double[] proximity;
+	/** null when the tablebase of the level is missing or has no lost position */
+	private double[] forcedCapture;
+
+	/**
+	 * construct the danger field of a belief state
+	 * @param state the root belief state of the decision
+	 */
+	public DangerField(BeliefState state) {
+		this.level = state.getLevel();
+		int size = this.level.getNbrCells();
+		this.farthest = new int[size];
+		this.proximity = new double[size];
+		int[] distance = new int[size];
+		int[] queue = new int[size];
+		DangerTablebase tablebase = state.getTablebase();
+		if(tablebase != null && tablebase.hasLostState())
+			this.forcedCapture = new double[size];
+		for(int k = 0; k < state.getNbrOfGhost(); k++) {
+			if(state.getCompteurPeur(k) > 0)
+				continue;
+			TreeSet<Position> positions = state.getGhostPositions(k);
+			if(positions.isEmpty()) {
+				Arrays.fill(this.farthest, UNREACHABLE);
+				continue;
+			}
+			// maze distance to the nearest possible position of the ghost
+			Arrays.fill(distance, UNREACHABLE);
+			int tail = 0;
+			for(Position pos: positions) {
+				int cell = this.level.getCellIndex(pos.x, pos.y);
+				if(cell >= 0 && distance[cell] != 0) {
+					distance[cell] = 0;
+					queue[tail++] = cell;
+				}
+			}
+			this.propagate(distance, queue, tail, UNREACHABLE);
+			for(int cell = 0; cell < size; cell++) {
+				this.farthest[cell] = Math.max(this.farthest[cell], distance[cell]);
+			}
+			// each possible position weighs 1/|positions|: a ghost seen for sure counts fully, a lost one is spread out
+			double weight = 1.0 / positions.size();
+			Arrays.fill(distance, UNREACHABLE);
+			for(Position pos: positions) {
+				int cell = this.level.getCellIndex(pos.x, pos.y);
+				if(cell < 0)
+					continue;
+				distance[cell] = 0;
+				queue[0] = cell;
+				int reached = this.propagate(distance, queue, 1, PROXIMITY_RANGE - 1);
+				for(int r = 0; r < reached; r++) {
+					this.proximity[queue[r]] += weight / (distance[queue[r]] + 1);
+					distance[queue[r]] = UNREACHABLE;
+				}
+				if(this.forcedCapture != null)
+					this.addForcedCapture(tablebase, pos, weight);
+			}
+		}
+	}
+
+	/**
+	 * add, for every square of Pacman, the forced capture by one possible position of a ghost
+	 * @param tablebase the tablebase of the level
+	 * @param ghost the possible position of the ghost, with its direction
+	 * @param weight the probability of the position
+	 */
+	private void addForcedCapture(DangerTablebase tablebase, Position ghost, double weight) {
+		for(int cell = 0; cell < this.forcedCapture.length; cell++) {
+			int[] position = this.level.getGamePositions().get(cell);
+			int rounds = tablebase.probe(position[0], position[1], ghost.getRow(), ghost.getColumn(), ghost.dir);
+			if(rounds != DangerTablebase.SAFE)
+				this.forcedCapture[cell] += weight / rounds;
+		}
+	}
+
+	/**
+	 * check whether every dangerous ghost may be within a given maze distance of a square
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @param distance the maximum distance
+	 * @return true if, for each dangerous ghost, one of its possible positions is within the distance
+	 */
+	public boolean allWithin(int i, int j, int distance) {
+		int cell = this.level.getCellIndex(i, j);
+		return cell >= 0 && this.farthest[cell] <= distance;
+	}
+
+	/**
+	 * return the proximity of a square to the ghosts: sum over the possible ghost positions closer than PROXIMITY_RANGE
+	 * of 1 / (distance + 1), weighted by the probability of the position
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @return the proximity, to be multiplied by the weight of the penalty
+	 */
+	public double getProximity(int i, int j) {
+		int cell = this.level.getCellIndex(i, j);
+		return cell < 0 ? 0 : this.proximity[cell];
+	}
+
+	/**
+	 * return the forced capture of a square: sum over the possible ghost positions from which the ghost takes Pacman
+	 * whatever he does of 1 / (number of rounds before the capture), weighted by the probability of the position
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @return the forced capture, to be multiplied by the weight of the penalty, 0 without lost positions
+	 */
+	public double getForcedCapture(int i, int j) {
+		int cell = this.level.getCellIndex(i, j);
+		return cell < 0 || this.forcedCapture == null ? 0 : this.forcedCapture[cell];
+	}
+
+	/**
+	 * breadth first search through the squares that are not walls
+	 * @param distance distances, UNREACHABLE for squares not reached yet
+	 * @param queue the starting squares
+	 * @param tail number of starting squares
+	 * @param maxDistance the search stops at this distance
+	 * @return the number of squares reached, listed at the beginning of queue
+	 */
+	private int propagate(int[] distance, int[] queue, int tail, int maxDistance) {
+		int head = 0;
+		while(head < tail) {
+			int cell = queue[head++];
+			if(distance[cell] >= maxDistance)
+				continue;
+			for(int d = 0; d < 4; d++) {
+				int n = this.level.getNeighbor(cell, d);
+				if(n < 0)
+					continue;
+				if(distance[n] == UNREACHABLE) {
+					distance[n] = distance[cell] + 1;
+					queue[tail++] = n;
+				}
+			}
+		}
+		return tail;
+	}
+}
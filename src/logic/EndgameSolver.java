@@ -0,0 +1,197 @@
+package logic;
+
+import java.util.Arrays;
+
+import data.Level;
+
+/**
+ * class used to collect the last gums of a level along the shortest tour.
+ * The order of the gums is computed once with the Held-Karp dynamic programming over the subsets of gums,
+ * from the maze distances between Pacman and every gum; then each decision only reads the next step of the tour.
+ * Gums eaten out of order (while the search dodges a ghost) are simply skipped.
+ * The squares are the squares of the level that are not walls (Level.getCellIndex).
+ */
+class EndgameSolver {
+	/** above this number of gums the 2^n tables of Held-Karp become too big */
+	public static final int MAX_GUMS = 16;
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final String[] DIRECTIONS = {PacManLauncher.UP, PacManLauncher.DOWN, PacManLauncher.LEFT, PacManLauncher.RIGHT};
+
+	private Level level;
+	/** squares of the gums, in the order of the tour */
+	private int[] tour;
+	/** distance[k][cell]: maze distance between the k-th gum of the tour and a square */
+	private int[][] distance;
+	/** index in the tour of the first gum not eaten yet */
+	private int next;
+	private int length;
+
+	private EndgameSolver(Level level, int[] tour, int[][] distance, int length) {
+		this.level = level;
+		this.tour = tour;
+		this.distance = distance;
+		this.length = length;
+		this.next = 0;
+	}
+
+	/**
+	 * compute the shortest tour collecting every remaining gum from the position of Pacman
+	 * @param state the belief state of the decision
+	 * @return the solver following the tour, null if there are too many gums or if one of them cannot be reached
+	 */
+	public static EndgameSolver solve(BeliefState state) {
+		int nbrGums = state.getNbrOfGommes();
+		if(nbrGums == 0 || nbrGums > MAX_GUMS)
+			return null;
+		Level level = state.getLevel();
+		int[] gums = new int[nbrGums];
+		int k = 0;
+		for(int cell = 0; cell < level.getNbrCells(); cell++) {
+			if(state.hasGum(cell) && k < nbrGums)
+				gums[k++] = cell;
+		}
+		if(k != nbrGums)
+			return null;
+		int[][] fromGum = new int[nbrGums][];
+		for(k = 0; k < nbrGums; k++)
+			fromGum[k] = EndgameSolver.breadthFirstSearch(level, gums[k]);
+		Position pac = state.getPacmanPosition();
+		int start = level.getCellIndex(pac.getRow(), pac.getColumn());
+		if(start < 0)
+			return null;
+		for(k = 0; k < nbrGums; k++) {
+			if(fromGum[k][start] == UNREACHABLE)
+				return null;
+		}
+
+		// cost[mask * n + last]: shortest walk from Pacman eating the gums of mask and ending on last
+		int full = 1 << nbrGums;
+		int[] cost = new int[full * nbrGums];
+		byte[] previous = new byte[full * nbrGums];
+		Arrays.fill(cost, UNREACHABLE);
+		for(k = 0; k < nbrGums; k++)
+			cost[(1 << k) * nbrGums + k] = fromGum[k][start];
+		for(int mask = 1; mask < full; mask++) {
+			for(int last = 0; last < nbrGums; last++) {
+				int current = cost[mask * nbrGums + last];
+				if(current == UNREACHABLE)
+					continue;
+				for(int added = 0; added < nbrGums; added++) {
+					if((mask & (1 << added)) != 0)
+						continue;
+					int index = (mask | (1 << added)) * nbrGums + added;
+					int candidate = current + fromGum[last][gums[added]];
+					if(candidate < cost[index]) {
+						cost[index] = candidate;
+						previous[index] = (byte)last;
+					}
+				}
+			}
+		}
+		int last = 0;
+		for(k = 1; k < nbrGums; k++) {
+			if(cost[(full - 1) * nbrGums + k] < cost[(full - 1) * nbrGums + last])
+				last = k;
+		}
+		int length = cost[(full - 1) * nbrGums + last];
+
+		// the tour is rebuilt backwards from its last gum
+		int[] tour = new int[nbrGums];
+		int[][] distance = new int[nbrGums][];
+		int mask = full - 1;
+		for(int position = nbrGums - 1; position >= 0; position--) {
+			tour[position] = gums[last];
+			distance[position] = fromGum[last];
+			int before = previous[mask * nbrGums + last];
+			mask &= ~(1 << last);
+			last = before;
+		}
+		return new EndgameSolver(level, tour, distance, length);
+	}
+
+	/**
+	 * check that the tour still covers exactly the remaining gums of a state (gums are never added,
+	 * so it is enough to compare the numbers)
+	 * @param state the belief state of the decision
+	 * @return true if the tour can still be followed
+	 */
+	public boolean matches(BeliefState state) {
+		if(state.getLevel() != this.level)
+			return false;
+		int remaining = 0;
+		for(int k = this.next; k < this.tour.length; k++) {
+			if(state.hasGum(this.tour[k]))
+				remaining++;
+		}
+		return remaining == state.getNbrOfGommes();
+	}
+
+	/**
+	 * return the first move toward the next gum of the tour that is still on the map
+	 * @param state the belief state of the decision
+	 * @return the move (PacManLauncher.UP, DOWN, LEFT or RIGHT), null if the tour is over
+	 */
+	public String nextMove(BeliefState state) {
+		while(this.next < this.tour.length) {
+			if(state.hasGum(this.tour[this.next]))
+				break;
+			this.next++;
+		}
+		if(this.next == this.tour.length)
+			return null;
+		Position pac = state.getPacmanPosition();
+		int cell = this.level.getCellIndex(pac.getRow(), pac.getColumn());
+		if(cell < 0)
+			return null;
+		int[] toTarget = this.distance[this.next];
+		for(int d = 0; d < 4; d++) {
+			int neighbor = this.level.getNeighbor(cell, d);
+			if(neighbor >= 0 && toTarget[neighbor] < toTarget[cell])
+				return DIRECTIONS[d];
+		}
+		return null;
+	}
+
+	/**
+	 * return the length of the tour computed by Held-Karp
+	 * @return the number of moves needed to eat every gum from the position of the computation
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * return the number of gums of the tour not eaten yet
+	 * @return the number of remaining gums in the tour
+	 */
+	public int getRemaining() {
+		return this.tour.length - this.next;
+	}
+
+	/**
+	 * breadth first search through the squares that are not walls
+	 * @param level the level
+	 * @param source the starting square
+	 * @return the maze distance between the source and every square, UNREACHABLE for the others
+	 */
+	private static int[] breadthFirstSearch(Level level, int source) {
+		int size = level.getNbrCells();
+		int[] distance = new int[size];
+		Arrays.fill(distance, UNREACHABLE);
+		int[] queue = new int[size];
+		int head = 0, tail = 0;
+		distance[source] = 0;
+		queue[tail++] = source;
+		while(head < tail) {
+			int cell = queue[head++];
+			for(int d = 0; d < 4; d++) {
+				int neighbor = level.getNeighbor(cell, d);
+				if(neighbor >= 0 && distance[neighbor] == UNREACHABLE) {
+					distance[neighbor] = distance[cell] + 1;
+					queue[tail++] = neighbor;
+				}
+			}
+		}
+		return distance;
+	}
+}
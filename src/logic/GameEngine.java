@@ -0,0 +1,390 @@
+package logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import data.Level;
+
+/**
+ * class used to play the game square by square, without any display.
+ * The true game is a BeliefState where every ghost has a single position: Pacman moves first (and stays in place
+ * against a wall), then each ghost moves like the ghosts of the original game (chase Pacman when they see him and
+ * are not frightened, otherwise a random allowed direction, never a U-turn out of a dead end). The engine also keeps
+ * the belief state of Pacman, extended with his move then filtered with the true ghost positions, which is what the
+ * AI decides on. Gums, fear, eaten ghosts, lost lives and the extra life every PALIER points follow the rules of
+ * BeliefState; the levels are played in a cycle. The display is an optional GameObserver.
+ * An engine shares nothing with the other engines but its read-only Level objects, so games run in parallel.
+ * The ghosts draw from a GameRandom seeded by the constructor: the same seed and the same moves of Pacman always
+ * give the same game.
+ * The whole game can be captured between two moves by snapshot, then restored or forked into other engines.
+ */
+public class GameEngine {
+	public static final int SCORE_GOMME = 10;
+	public static final int SCORE_FANTOME = 100;
+	public static final int TIME_PEUR = 60;
+	public static final int LIFE_START = 1;
+	public static final int PALIER = 10000;//palier pour gagner une vie
+	private static final String DIRECTIONS = "UDLR";
+	private static final int[] ROW_STEP = {-1, 1, 0, 0};
+	private static final int[] COLUMN_STEP = {0, 0, -1, 1};
+	static final String[] MOVES = {PacManLauncher.UP, PacManLauncher.DOWN, PacManLauncher.LEFT, PacManLauncher.RIGHT};
+
+	private Level[] levels;
+	private int levelIndex;
+	private BeliefState state;
+	private ArrayList<BeliefState> visibleBeliefState;
+	private int palier;
+	private int ticks;
+	private long seed;
+	private GameRandom random;
+	/** direction of each ghost at the last move, -1 for a ghost that did not move */
+	private int[] ghostMoves;
+	private ArrayList<GameObserver> observers;
+
+	/**
+	 * create an engine playing a cycle of maps
+	 * @param mapNumbers the numbers of the maps (doc/mapN.map), in the order of the levels
+	 * @param seed the seed of the ghosts
+	 */
+	public GameEngine(int[] mapNumbers, long seed) {
+		this(GameEngine.loadLevels(mapNumbers), seed);
+	}
+
+	/**
+	 * create an engine playing a cycle of levels already loaded
+	 * @param levels the levels, in the order in which they are played
+	 * @param seed the seed of the ghosts
+	 */
+	public GameEngine(Level[] levels, long seed) {
+		if(levels.length == 0)
+			throw new IllegalArgumentException("no level to play");
+		this.levels = levels.clone();
+		this.seed = seed;
+		this.random = new GameRandom(seed);
+		this.observers = new ArrayList<GameObserver>();
+	}
+
+	/**
+	 * create an engine continuing the game of a snapshot, see GameSnapshot.fork
+	 * @param snapshot the game to continue
+	 * @param random the random source of the ghosts, owned by the new engine
+	 */
+	GameEngine(GameSnapshot snapshot, GameRandom random) {
+		this.levels = snapshot.getLevels();
+		this.seed = snapshot.getSeed();
+		this.observers = new ArrayList<GameObserver>();
+		this.load(snapshot, random);
+	}
+
+	private static Level[] loadLevels(int[] mapNumbers) {
+		Level[] levels = new Level[mapNumbers.length];
+		for(int i = 0; i < mapNumbers.length; i++) {
+			levels[i] = new Level(mapNumbers[i]);
+		}
+		return levels;
+	}
+
+	public void addObserver(GameObserver observer) {
+		this.observers.add(observer);
+	}
+
+	public void removeObserver(GameObserver observer) {
+		this.observers.remove(observer);
+	}
+
+	/**
+	 * start a new game on the first level, with LIFE_START lives and no point
+	 */
+	public void start() {
+		this.palier = PALIER;
+		this.ticks = 0;
+		this.startLevel(0, 0, LIFE_START);
+	}
+
+	/**
+	 * start the next level of the cycle, keeping the score and the lives
+	 */
+	public void nextLevel() {
+		this.startLevel((this.levelIndex + 1) % this.levels.length, this.state.getScore(), this.state.getLife());
+	}
+
+	private void startLevel(int index, int score, int life) {
+		this.levelIndex = index;
+		this.state = new BeliefState(this.levels[index], score, life);
+		this.visibleBeliefState = new ArrayList<BeliefState>();
+		this.visibleBeliefState.add(new BeliefState(this.state, false));
+		// what Pacman knows is the input of the AI: every state derived from it shares and updates its gum fields
+		this.visibleBeliefState.get(0).buildGumFields();
+		this.ghostMoves = new int[0];
+		for(GameObserver observer: this.observers) {
+			observer.levelStarted(this);
+		}
+	}
+
+	/**
+	 * capture the game between two moves
+	 * @return the snapshot of the game
+	 */
+	public GameSnapshot snapshot() {
+		if(this.state == null)
+			throw new IllegalStateException("the game has not started");
+		return new GameSnapshot(this.levels, this.levelIndex, this.state, this.visibleBeliefState, this.palier, this.ticks,
+				this.seed, this.random, this.ghostMoves);
+	}
+
+	/**
+	 * go back (or forward) to the game of a snapshot, possibly taken by another engine; the observers are kept and
+	 * notified with levelStarted so that they show the restored game (a ReplayRecorder cannot record across a restore)
+	 * @param snapshot the game to restore
+	 */
+	public void restore(GameSnapshot snapshot) {
+		this.levels = snapshot.getLevels();
+		this.seed = snapshot.getSeed();
+		this.load(snapshot, snapshot.getRandom());
+		for(GameObserver observer: this.observers) {
+			observer.levelStarted(this);
+		}
+	}
+
+	private void load(GameSnapshot snapshot, GameRandom random) {
+		this.levelIndex = snapshot.getLevelIndex();
+		this.state = snapshot.getState();
+		this.visibleBeliefState = snapshot.getVisibleBeliefState();
+		for(BeliefState belief: this.visibleBeliefState) {
+			belief.buildGumFields();
+		}
+		this.palier = snapshot.getPalier();
+		this.ticks = snapshot.getTicks();
+		this.random = random;
+		this.ghostMoves = snapshot.getGhostMoves();
+	}
+
+	/**
+	 * play one move of Pacman then one move of each ghost
+	 * @param move the move of Pacman (PacManLauncher.UP, DOWN, LEFT or RIGHT)
+	 * @return true if Pacman lost a life
+	 */
+	public boolean step(String move) {
+		return this.step(move, null);
+	}
+
+	/**
+	 * play one move of Pacman then the given move of each ghost, to replay a recorded game
+	 * @param move the move of Pacman (PacManLauncher.UP, DOWN, LEFT or RIGHT)
+	 * @param forcedGhostMoves the direction of each ghost (an index of UDLR, -1 to stay), null to let the ghosts choose
+	 * @return true if Pacman lost a life
+	 */
+	public boolean step(String move, int[] forcedGhostMoves) {
+		int d = GameEngine.indexOf(move);
+		int life = this.state.getLife(), gums = this.state.getNbrOfGommes();
+		ArrayList<BeliefState> candidates = new ArrayList<BeliefState>();
+		for(BeliefState belief: this.visibleBeliefState) {
+			candidates.addAll(belief.extendsBeliefState(move).getBeliefStates());
+		}
+		boolean dead = this.state.move(ROW_STEP[d], COLUMN_STEP[d], DIRECTIONS.charAt(d));
+		this.ghostMoves = new int[this.state.getNbrOfGhost()];
+		Arrays.fill(this.ghostMoves, -1);
+		if(dead) {
+			// Pacman walked into a ghost: everybody goes back to the start
+			this.state = new BeliefState(this.state, true);
+		}
+		else {
+			for(int k = 0; k < this.state.getNbrOfGhost(); k++) {
+				int g = forcedGhostMoves == null ? GameEngine.chooseGhostMove(this.state, k, this.random) : forcedGhostMoves[k];
+				this.ghostMoves[k] = g;
+				if(g >= 0 && this.state.moveGhost(ROW_STEP[g], COLUMN_STEP[g], k, DIRECTIONS.charAt(g)) == 1) {
+					dead = true;
+					break;
+				}
+			}
+		}
+		if(!dead && this.state.getNbrOfGommes() < gums && this.state.getScore() >= this.palier) {
+			this.palier += PALIER;
+			this.state.gainLife();
+			for(BeliefState candidate: candidates) {
+				candidate.gainLife();
+			}
+		}
+		this.visibleBeliefState = new ArrayList<BeliefState>();
+		this.visibleBeliefState.add(GameEngine.observe(candidates, this.state));
+		this.ticks++;
+		for(GameObserver observer: this.observers) {
+			observer.moved(this, move);
+		}
+		if(this.state.getLife() < life) {
+			for(GameObserver observer: this.observers) {
+				observer.lifeLost(this);
+			}
+			if(this.isGameOver()) {
+				for(GameObserver observer: this.observers) {
+					observer.gameOver(this);
+				}
+			}
+		}
+		return this.state.getLife() < life;
+	}
+
+	/**
+	 * choose the move of a ghost
+	 * @param truth the true game
+	 * @param k the index of the ghost
+	 * @param random the random generator of the ghosts
+	 * @return the index of the direction, -1 if the ghost cannot move
+	 */
+	static int chooseGhostMove(BeliefState truth, int k, GameRandom random) {
+		Position ghost = truth.getPGhost(k);
+		Position pacman = truth.getPacmanOldPosition();
+		Level level = truth.getLevel();
+		if(truth.getCompteurPeur(k) == 0 && truth.isVisible(ghost.x, ghost.y, pacman.x, pacman.y) && (ghost.x != pacman.x || ghost.y != pacman.y)) {
+			return ghost.x > pacman.x ? 0 : (ghost.x < pacman.x ? 1 : (ghost.y < pacman.y ? 3 : 2));
+		}
+		int forward = DIRECTIONS.indexOf(ghost.dir);
+		int first = forward < 2 ? 2 : 0;
+		boolean lateral = GameEngine.isOpen(level, ghost, first) || GameEngine.isOpen(level, ghost, first + 1);
+		if(!lateral && GameEngine.isOpen(level, ghost, forward)) {
+			return forward;
+		}
+		int[] options = new int[4];
+		int nbr = 0;
+		for(int d = 0; d < 4; d++) {
+			if(GameEngine.isOpen(level, ghost, d) && (d != (forward ^ 1) || !lateral)) {
+				options[nbr++] = d;
+			}
+		}
+		return nbr == 0 ? -1 : options[random.nextInt(nbr)];
+	}
+
+	/**
+	 * keep the belief state that agrees with what Pacman sees of the true game
+	 * @param candidates the belief states after the move of Pacman
+	 * @param truth the true game
+	 * @return the matching belief state, a copy of the true game if the belief lost track of it
+	 */
+	static BeliefState observe(ArrayList<BeliefState> candidates, BeliefState truth) {
+		Position pacman = truth.getPacmanPosition();
+		for(BeliefState state: candidates) {
+			Position position = state.getPacmanPosition();
+			boolean consistent = state.getLife() == truth.getLife() && position.x == pacman.x && position.y == pacman.y;
+			for(int k = 0; k < truth.getNbrOfGhost() && consistent; k++) {
+				consistent = state.getGhostPositions(k).contains(truth.getPGhost(k));
+			}
+			if(consistent) {
+				return state;
+			}
+		}
+		return new BeliefState(truth, false);
+	}
+
+	private static boolean isOpen(Level level, Position position, int d) {
+		return !level.isWall(position.x + ROW_STEP[d], position.y + COLUMN_STEP[d]);
+	}
+
+	static int indexOf(String move) {
+		for(int d = 0; d < MOVES.length; d++) {
+			if(MOVES[d].equals(move)) {
+				return d;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * check whether every gum of the level has been eaten
+	 * @return true if the level is cleared
+	 */
+	public boolean isLevelCleared() {
+		return this.state.getNbrOfGommes() == 0;
+	}
+
+	/**
+	 * check whether Pacman has no life left
+	 * @return true if the game is over
+	 */
+	public boolean isGameOver() {
+		return this.state.getLife() <= 0;
+	}
+
+	/**
+	 * return the true game; it must not be modified
+	 * @return the state of the game, where every ghost has a single position
+	 */
+	public BeliefState getState() {
+		return this.state;
+	}
+
+	/**
+	 * return what Pacman knows of the game, the input of the AI
+	 * @return the belief states of Pacman
+	 */
+	public ArrayList<BeliefState> getVisibleBeliefState() {
+		return this.visibleBeliefState;
+	}
+
+	/**
+	 * return the level being played
+	 * @return the current level
+	 */
+	public Level getLevel() {
+		return this.levels[this.levelIndex];
+	}
+
+	/**
+	 * return the position of the current level in the cycle
+	 * @return the index of the level, 0 for the first level
+	 */
+	public int getLevelIndex() {
+		return this.levelIndex;
+	}
+
+	/**
+	 * return the numbers of the maps played in a cycle
+	 * @return the number of each map (doc/mapN.map), 0 for a level not read from a numbered map
+	 */
+	public int[] getMapNumbers() {
+		int[] numbers = new int[this.levels.length];
+		for(int i = 0; i < numbers.length; i++) {
+			numbers[i] = this.levels[i].getMapNumber();
+		}
+		return numbers;
+	}
+
+	/**
+	 * return the direction of each ghost at the last move
+	 * @return an index of UDLR for every ghost, -1 for a ghost that did not move
+	 */
+	public int[] getGhostMoves() {
+		return this.ghostMoves.clone();
+	}
+
+	/**
+	 * return the seed given to the constructor
+	 * @return the seed of the game
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * return the number of moves of Pacman since the start of the game
+	 * @return the number of moves
+	 */
+	public int getTicks() {
+		return this.ticks;
+	}
+
+	/**
+	 * return the random source of the ghosts
+	 * @return the generator, in the state of the next move
+	 */
+	public GameRandom getRandom() {
+		return this.random;
+	}
+
+	public int getScore() {
+		return this.state.getScore();
+	}
+
+	public int getLife() {
+		return this.state.getLife();
+	}
+}
@@ -0,0 +1,38 @@
+package logic;
+
+/**
+ * interface of the objects notified by a GameEngine (the Swing view, statistics, recorders...).
+ * The notifications are sent from the thread playing the game, after the engine has been updated;
+ * every method does nothing by default.
+ */
+public interface GameObserver {
+
+	/**
+	 * called when a level starts, before the first move of Pacman, and when a snapshot is restored (GameEngine.restore)
+	 * @param engine the engine playing the game
+	 */
+	default void levelStarted(GameEngine engine) {
+	}
+
+	/**
+	 * called after each move of Pacman and of the ghosts
+	 * @param engine the engine playing the game
+	 * @param move the move of Pacman (PacManLauncher.UP, DOWN, LEFT or RIGHT)
+	 */
+	default void moved(GameEngine engine, String move) {
+	}
+
+	/**
+	 * called when Pacman loses a life, after everybody went back to the start
+	 * @param engine the engine playing the game
+	 */
+	default void lifeLost(GameEngine engine) {
+	}
+
+	/**
+	 * called when Pacman has no life left
+	 * @param engine the engine playing the game
+	 */
+	default void gameOver(GameEngine engine) {
+	}
+}
@@ -0,0 +1,128 @@
+package logic;
+
+/**
+ * class used as the random source of one game: the ghosts of a GameEngine and the tie-break of the AI.
+ * It is the SplitMix64 generator (the one of java.util.SplittableRandom): the state is a single counter that
+ * advances by an odd gamma at each draw, so the same seed always gives the same numbers, on any JVM. Unlike
+ * SplittableRandom, the state can be read and copied, so that a game can be saved or replayed with its generator.
+ * A generator is not thread-safe; every game owns its generators and never shares them with another game.
+ */
+public class GameRandom {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long state;
+	private final long gamma;
+
+	/**
+	 * create a generator
+	 * @param seed the seed, the same seed gives the same numbers
+	 */
+	public GameRandom(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * create a copy of a generator, drawing the same numbers as the original from now on
+	 * @param toCopy the generator to copy
+	 */
+	public GameRandom(GameRandom toCopy) {
+		this(toCopy.state, toCopy.gamma);
+	}
+
+	private GameRandom(long state, long gamma) {
+		this.state = state;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * create a new generator whose numbers are independent of the numbers of this one
+	 * @return the new generator, this generator moves two draws forward
+	 */
+	public GameRandom split() {
+		return new GameRandom(GameRandom.mix64(this.nextSeed()), GameRandom.mixGamma(this.nextSeed()));
+	}
+
+	/**
+	 * return the next random number
+	 * @return a number uniformly chosen among all the long values
+	 */
+	public long nextLong() {
+		return GameRandom.mix64(this.nextSeed());
+	}
+
+	/**
+	 * return the next random integer lower than a bound
+	 * @param bound the bound, positive
+	 * @return an integer uniformly chosen between 0 (included) and bound (excluded)
+	 */
+	public int nextInt(int bound) {
+		if(bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+		int r = GameRandom.mix32(this.nextSeed());
+		int m = bound - 1;
+		if((bound & m) == 0)
+			return r & m;
+		// reject the last incomplete range of r so that every value has the same probability
+		for(int u = r >>> 1; u + m - (r = u % bound) < 0; u = GameRandom.mix32(this.nextSeed()) >>> 1);
+		return r;
+	}
+
+	/**
+	 * return the next random double
+	 * @return a double uniformly chosen between 0 (included) and 1 (excluded)
+	 */
+	public double nextDouble() {
+		return (this.nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * return the state of the generator: a generator created with the same state and gamma draws the same numbers
+	 * @return the current state
+	 */
+	public long getState() {
+		return this.state;
+	}
+
+	/**
+	 * return the increment of the state at each draw
+	 * @return the gamma, an odd number
+	 */
+	public long getGamma() {
+		return this.gamma;
+	}
+
+	/**
+	 * create a generator from a saved state
+	 * @param state the state, given by getState
+	 * @param gamma the gamma, given by getGamma (odd)
+	 * @return the generator, drawing the same numbers as the saved generator from the save on
+	 */
+	public static GameRandom restore(long state, long gamma) {
+		if((gamma & 1) == 0)
+			throw new IllegalArgumentException("gamma must be odd");
+		return new GameRandom(state, gamma);
+	}
+
+	private long nextSeed() {
+		return this.state += this.gamma;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int)(((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		// a gamma with too few bit transitions gives poorly mixed states
+		return Long.bitCount(z ^ (z >>> 1)) < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
@@ -0,0 +1,205 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import data.Level;
+
+/**
+ * class used to capture a whole game between two moves: the levels of the cycle and the current level, the true game,
+ * the belief state of Pacman, the score of the next extra life, the number of moves, the seed and the state of the
+ * random source of the ghosts. A snapshot never changes once taken: it holds its own copies of the states (the gums
+ * are shared with them until a gum is eaten, the levels are read-only), so it is cheap to take and one snapshot can
+ * be forked into as many independent engines as needed, on as many threads. A forked engine plays exactly like the
+ * engine of the snapshot would have played from there, unless it is given another random source.
+ * A snapshot can be written to a file and read back, to resume a game or to reproduce a situation.
+ * Nothing of the display is captured: a view added to a restored engine is synchronized by GameObserver.levelStarted.
+ */
+public final class GameSnapshot {
+	static final int MAGIC = 0x504d534e; // "PMSN"
+	static final byte VERSION = 1;
+	// the number of levels, the index of the level and the number of ghosts are written on an unsigned byte
+	static final int MAX_COUNT = 0xff;
+
+	private final Level[] levels;
+	private final int levelIndex;
+	private final BeliefState state;
+	private final BeliefState[] visibleBeliefState;
+	private final int palier;
+	private final int ticks;
+	private final long seed;
+	private final long randomState, randomGamma;
+	private final int[] ghostMoves;
+
+	GameSnapshot(Level[] levels, int levelIndex, BeliefState state, ArrayList<BeliefState> visibleBeliefState, int palier,
+			int ticks, long seed, GameRandom random, int[] ghostMoves) {
+		this.levels = levels.clone();
+		this.levelIndex = levelIndex;
+		this.state = new BeliefState(state, false);
+		this.visibleBeliefState = new BeliefState[visibleBeliefState.size()];
+		for(int i = 0; i < this.visibleBeliefState.length; i++) {
+			this.visibleBeliefState[i] = new BeliefState(visibleBeliefState.get(i), false);
+		}
+		this.palier = palier;
+		this.ticks = ticks;
+		this.seed = seed;
+		this.randomState = random.getState();
+		this.randomGamma = random.getGamma();
+		this.ghostMoves = ghostMoves.clone();
+	}
+
+	/**
+	 * create an engine continuing the game of the snapshot, with the same moves of the ghosts as the original game
+	 * @return a new engine without observer
+	 */
+	public GameEngine fork() {
+		return new GameEngine(this, this.getRandom());
+	}
+
+	/**
+	 * create an engine continuing the game of the snapshot with other moves of the ghosts, for rollouts
+	 * @param random the random source of the ghosts of the new engine
+	 * @return a new engine without observer
+	 */
+	public GameEngine fork(GameRandom random) {
+		return new GameEngine(this, new GameRandom(random));
+	}
+
+	Level[] getLevels() {
+		return this.levels.clone();
+	}
+
+	public int getLevelIndex() {
+		return this.levelIndex;
+	}
+
+	/**
+	 * return a copy of the true game
+	 * @return the state of the game, where every ghost has a single position
+	 */
+	public BeliefState getState() {
+		return new BeliefState(this.state, false);
+	}
+
+	/**
+	 * return a copy of what Pacman knows of the game
+	 * @return the belief states of Pacman
+	 */
+	public ArrayList<BeliefState> getVisibleBeliefState() {
+		ArrayList<BeliefState> visible = new ArrayList<BeliefState>();
+		for(BeliefState belief: this.visibleBeliefState) {
+			visible.add(new BeliefState(belief, false));
+		}
+		return visible;
+	}
+
+	int getPalier() {
+		return this.palier;
+	}
+
+	public int getTicks() {
+		return this.ticks;
+	}
+
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * return the random source of the ghosts, in the state of the next move
+	 * @return a new generator
+	 */
+	public GameRandom getRandom() {
+		return GameRandom.restore(this.randomState, this.randomGamma);
+	}
+
+	int[] getGhostMoves() {
+		return this.ghostMoves.clone();
+	}
+
+	public int getScore() {
+		return this.state.getScore();
+	}
+
+	public int getLife() {
+		return this.state.getLife();
+	}
+
+	/**
+	 * write the snapshot to a file: the maps of the cycle are written by number, or by file for the other levels
+	 * @param file the file, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalStateException if the game has more than MAX_COUNT levels or ghosts
+	 */
+	public void write(String file) throws IOException {
+		if(this.levels.length > MAX_COUNT || this.ghostMoves.length > MAX_COUNT)
+			throw new IllegalStateException("a snapshot holds at most " + MAX_COUNT + " levels and ghosts, not "
+					+ this.levels.length + " levels and " + this.ghostMoves.length + " ghosts");
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeLong(this.seed);
+			out.writeByte(this.levels.length);
+			for(Level level: this.levels) {
+				out.writeInt(level.getMapNumber());
+				if(level.getMapNumber() <= 0)
+					out.writeUTF(level.getMapFile());
+			}
+			out.writeByte(this.levelIndex);
+			out.writeInt(this.ticks);
+			out.writeInt(this.palier);
+			out.writeLong(this.randomState);
+			out.writeLong(this.randomGamma);
+			out.writeByte(this.ghostMoves.length);
+			for(int move: this.ghostMoves) {
+				out.writeByte(move);
+			}
+			this.state.write(out);
+			out.writeInt(this.visibleBeliefState.length);
+			for(BeliefState belief: this.visibleBeliefState) {
+				belief.write(out);
+			}
+		}
+	}
+
+	/**
+	 * read a snapshot written by write, loading its levels again
+	 * @param file the file
+	 * @return the snapshot
+	 * @throws IOException if the file cannot be read or is not a snapshot
+	 */
+	public static GameSnapshot read(String file) throws IOException {
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if(in.readInt() != MAGIC)
+				throw new IOException(file + " is not a snapshot");
+			byte version = in.readByte();
+			if(version != VERSION)
+				throw new IOException("unknown version " + version + " of snapshot");
+			long seed = in.readLong();
+			Level[] levels = new Level[in.readUnsignedByte()];
+			for(int i = 0; i < levels.length; i++) {
+				int map = in.readInt();
+				levels[i] = map > 0 ? new Level(map) : new Level(in.readUTF());
+			}
+			int levelIndex = in.readUnsignedByte();
+			int ticks = in.readInt(), palier = in.readInt();
+			GameRandom random = GameRandom.restore(in.readLong(), in.readLong());
+			int[] ghostMoves = new int[in.readUnsignedByte()];
+			for(int k = 0; k < ghostMoves.length; k++) {
+				ghostMoves[k] = in.readByte();
+			}
+			BeliefState state = BeliefState.read(in, levels[levelIndex]);
+			ArrayList<BeliefState> visible = new ArrayList<BeliefState>();
+			for(int n = in.readInt(); n > 0; n--) {
+				visible.add(BeliefState.read(in, levels[levelIndex]));
+			}
+			return new GameSnapshot(levels, levelIndex, state, visible, palier, ticks, seed, random, ghostMoves);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package logic;
+
+import java.util.Arrays;
+
+/**
+ * class used to count the remaining gums in any rectangle of a map in constant time (summed-area table).
+ * Like GumDistanceField, the table is built once per level (BeliefState.buildGumFields), shared between belief
+ * states, and eating a gum returns an updated copy.
+ * The copy shares the summed-area table and only lists the gums eaten since the table was built; the table is
+ * built again once MAX_EATEN gums are listed. A copy therefore costs the list rather than the area of the map,
+ * and a rectangle is counted with four reads of the table and at most MAX_EATEN comparisons.
+ */
+class GumDensityTable {
+	/** number of gums eaten before the summed-area table is built again */
+	private static final int MAX_EATEN = 32;
+
+	private int rows, columns;
+	/** sum[(i + 1) * (columns + 1) + (j + 1)] is the number of gums in the rectangle (0, 0) - (i, j) when the table was built */
+	private int[] sum;
+	/** the squares (i * columns + j) of the gums eaten since the table was built */
+	private int[] eaten;
+
+	/**
+	 * construct the table of the remaining gums of a state
+	 * @param state the belief state
+	 */
+	public GumDensityTable(BeliefState state) {
+		this.rows = state.getLevel().getRows();
+		this.columns = state.getLevel().getColumns();
+		int width = this.columns + 1;
+		this.sum = new int[(this.rows + 1) * width];
+		for(int i = 0; i < this.rows; i++) {
+			int line = 0;
+			for(int j = 0; j < this.columns; j++) {
+				if(state.hasGum(i, j))
+					line++;
+				this.sum[(i + 1) * width + j + 1] = this.sum[i * width + j + 1] + line;
+			}
+		}
+		this.eaten = new int[0];
+	}
+
+	/**
+	 * construct a copy of a table with one more eaten gum, the summed-area table is shared
+	 * @param toCopy the table to copy
+	 * @param square the square of the eaten gum (i * columns + j)
+	 */
+	private GumDensityTable(GumDensityTable toCopy, int square) {
+		this.rows = toCopy.rows;
+		this.columns = toCopy.columns;
+		this.sum = toCopy.sum;
+		this.eaten = Arrays.copyOf(toCopy.eaten, toCopy.eaten.length + 1);
+		this.eaten[toCopy.eaten.length] = square;
+	}
+
+	/**
+	 * return the number of gums in a rectangle, the parts of the rectangle outside of the map are ignored
+	 * @param row1 first row of the rectangle
+	 * @param column1 first column of the rectangle
+	 * @param row2 last row of the rectangle (included)
+	 * @param column2 last column of the rectangle (included)
+	 * @return the number of remaining gums in the rectangle
+	 */
+	public int count(int row1, int column1, int row2, int column2) {
+		row1 = Math.max(row1, 0);
+		column1 = Math.max(column1, 0);
+		row2 = Math.min(row2, this.rows - 1);
+		column2 = Math.min(column2, this.columns - 1);
+		if(row1 > row2 || column1 > column2)
+			return 0;
+		int width = this.columns + 1;
+		int count = this.sum[(row2 + 1) * width + column2 + 1] - this.sum[row1 * width + column2 + 1]
+				- this.sum[(row2 + 1) * width + column1] + this.sum[row1 * width + column1];
+		for(int square: this.eaten) {
+			int i = square / this.columns, j = square % this.columns;
+			if(i >= row1 && i <= row2 && j >= column1 && j <= column2)
+				count--;
+		}
+		return count;
+	}
+
+	/**
+	 * return the number of gums in the square of a given radius around a position
+	 * @param i row of the center
+	 * @param j column of the center
+	 * @param radius half size of the square
+	 * @return the number of remaining gums around the position
+	 */
+	public int countAround(int i, int j, int radius) {
+		return this.count(i - radius, j - radius, i + radius, j + radius);
+	}
+
+	/**
+	 * return the table once a gum has been eaten
+	 * @param i row of the eaten gum
+	 * @param j column of the eaten gum
+	 * @return an updated copy of the table
+	 */
+	public GumDensityTable withoutGum(int i, int j) {
+		GumDensityTable table = new GumDensityTable(this, i * this.columns + j);
+		if(table.eaten.length > MAX_EATEN)
+			table.rebuild();
+		return table;
+	}
+
+	/**
+	 * build a new summed-area table without the eaten gums, from the gums of each square of the current one
+	 */
+	private void rebuild() {
+		int width = this.columns + 1;
+		int[] sum = new int[this.sum.length];
+		int[] eaten = this.eaten.clone();
+		Arrays.sort(eaten);
+		int next = 0;
+		for(int i = 0; i < this.rows; i++) {
+			int line = 0;
+			for(int j = 0; j < this.columns; j++) {
+				int index = (i + 1) * width + j + 1;
+				line += this.sum[index] - this.sum[index - width] - this.sum[index - 1] + this.sum[index - width - 1];
+				while(next < eaten.length && eaten[next] == i * this.columns + j) {
+					line--;
+					next++;
+				}
+				sum[index] = sum[index - width] + line;
+			}
+		}
+		this.sum = sum;
+		this.eaten = new int[0];
+	}
+}
@@ -0,0 +1,331 @@
+package logic;
+
+import java.util.Arrays;
+
+import data.Level;
+
+/**
+ * class used to represent, for every square of a map, the maze distance to the nearest remaining gum.
+ * The field is computed once per level with a multi-source breadth first search from all the gums (see
+ * BeliefState.buildGumFields), then updated gum by gum.
+ * It is immutable from the point of view of the belief states: eating a gum returns an updated copy,
+ * so states that did not eat anything keep sharing the same field (copy-on-write).
+ * Like GumDensityTable, the copy shares the array of the distances and only lists, sorted by square, the distances
+ * changed since the array was built; the array is built again once MAX_EATEN gums are eaten or MAX_CHANGED distances
+ * are listed. Eating a gum therefore costs the squares around it rather than the area of the map.
+ * The squares are the squares that are not walls (Level.getCellIndex), the neighbors come from the level and the
+ * gums from the belief state.
+ * The update works in buffers kept by each thread, so eating a gum only allocates the list of the changes.
+ * With assertions enabled (java -ea), every update is checked against a full breadth first search.
+ */
+class GumDistanceField {
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+	/** number of gums eaten before the array of the distances is built again */
+	private static final int MAX_EATEN = 32;
+	/** number of changed distances above which the array of the distances is built again */
+	private static final int MAX_CHANGED = 1024;
+
+	/**
+	 * working arrays of the updates of one thread, as large as the largest level seen by the thread
+	 */
+	private static final class Buffers {
+		private int[] queue = new int[0];
+		private int[] ring = new int[0];
+		private boolean[] affected = new boolean[0];
+		private boolean[] queued = new boolean[0];
+		/** the new distance of the affected squares */
+		private int[] value = new int[0];
+
+		private void ensure(int size) {
+			if(this.queue.length < size) {
+				this.queue = new int[size];
+				this.ring = new int[size];
+				this.affected = new boolean[size];
+				this.queued = new boolean[size];
+				this.value = new int[size];
+			}
+		}
+	}
+
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	private Level level;
+	/** distance[cell] is the distance of the square when the array was built, shared by the copies */
+	private int[] distance;
+	/** the squares whose distance changed since the array was built, sorted */
+	private int[] changedCells;
+	/** the distances of changedCells */
+	private int[] changedDistances;
+	/** number of gums eaten since the array was built */
+	private int eaten;
+
+	/**
+	 * construct the field of the remaining gums of a state
+	 * @param state the belief state
+	 */
+	public GumDistanceField(BeliefState state) {
+		this.level = state.getLevel();
+		int size = this.level.getNbrCells();
+		this.distance = new int[size];
+		int[] queue = new int[size];
+		int tail = 0;
+		for(int cell = 0; cell < size; cell++) {
+			this.distance[cell] = UNREACHABLE;
+			if(state.hasGum(cell)) {
+				this.distance[cell] = 0;
+				queue[tail++] = cell;
+			}
+		}
+		this.propagate(queue, tail);
+		this.changedCells = new int[0];
+		this.changedDistances = new int[0];
+	}
+
+	/**
+	 * construct a copy of a field, the array of the distances and the list of the changes are shared
+	 * @param toCopy the field to copy
+	 */
+	private GumDistanceField(GumDistanceField toCopy) {
+		this.level = toCopy.level;
+		this.distance = toCopy.distance;
+		this.changedCells = toCopy.changedCells;
+		this.changedDistances = toCopy.changedDistances;
+		this.eaten = toCopy.eaten;
+	}
+
+	/**
+	 * return the maze distance from a square to the nearest remaining gum
+	 * @param i row of the square
+	 * @param j column of the square
+	 * @return the distance, UNREACHABLE if no gum can be reached
+	 */
+	public int getDistance(int i, int j) {
+		int cell = this.level.getCellIndex(i, j);
+		return cell < 0 ? UNREACHABLE : this.get(cell);
+	}
+
+	/**
+	 * return the distance of a square, from the list of the changes or else from the shared array
+	 * @param cell index of the square (Level.getCellIndex)
+	 * @return the distance, UNREACHABLE if no gum can be reached
+	 */
+	private int get(int cell) {
+		if(this.changedCells.length > 0) {
+			int k = Arrays.binarySearch(this.changedCells, cell);
+			if(k >= 0)
+				return this.changedDistances[k];
+		}
+		return this.distance[cell];
+	}
+
+	/**
+	 * return the field once a gum has been eaten
+	 * @param state the state that ate the gum, whose gums are up to date
+	 * @param cell index of the square of the eaten gum (Level.getCellIndex)
+	 * @return this field if there was no gum on the square, otherwise an updated copy
+	 */
+	public GumDistanceField withoutGum(BeliefState state, int cell) {
+		if(cell < 0 || this.get(cell) != 0)
+			return this;
+		GumDistanceField field = new GumDistanceField(this);
+		field.removeGum(cell);
+		if(field.eaten > MAX_EATEN || field.changedCells.length > MAX_CHANGED)
+			field.flatten();
+		assert field.invariant(state) : "wrong distance after eating the gum of the square " + cell;
+		return field;
+	}
+
+	/**
+	 * build a new array of the distances with the listed changes
+	 */
+	private void flatten() {
+		this.distance = this.distance.clone();
+		for(int k = 0; k < this.changedCells.length; k++)
+			this.distance[this.changedCells[k]] = this.changedDistances[k];
+		this.changedCells = new int[0];
+		this.changedDistances = new int[0];
+		this.eaten = 0;
+	}
+
+	/**
+	 * decremental update: only the squares whose distance may have been given by the eaten gum are recomputed,
+	 * i.e. the squares reachable from it by strictly increasing distances
+	 * @param source the square of the eaten gum
+	 */
+	private void removeGum(int source) {
+		Buffers buffers = BUFFERS.get();
+		buffers.ensure(this.distance.length);
+		boolean[] affected = buffers.affected;
+		int[] queue = buffers.queue;
+		int[] value = buffers.value;
+		int head = 0, tail = 0;
+		affected[source] = true;
+		queue[tail++] = source;
+		int[] neighbors = new int[4];
+		while(head < tail) {
+			int cell = queue[head++];
+			int nbr = this.neighbors(cell, neighbors);
+			for(int k = 0; k < nbr; k++) {
+				int next = neighbors[k];
+				if(!affected[next] && this.get(next) == this.get(cell) + 1) {
+					affected[next] = true;
+					queue[tail++] = next;
+				}
+			}
+		}
+		// the border of the affected area gives the new starting distances
+		int[] seeds = buffers.ring;
+		int nbrSeeds = 0;
+		for(int k = 0; k < tail; k++) {
+			int cell = queue[k];
+			value[cell] = UNREACHABLE;
+			int nbr = this.neighbors(cell, neighbors);
+			for(int l = 0; l < nbr; l++) {
+				int d = affected[neighbors[l]] ? UNREACHABLE : this.get(neighbors[l]);
+				if(d != UNREACHABLE && d + 1 < value[cell])
+					value[cell] = d + 1;
+			}
+			if(value[cell] != UNREACHABLE)
+				seeds[nbrSeeds++] = cell;
+		}
+		GumDistanceField.relax(this.level, seeds, nbrSeeds, affected, buffers.queued, value);
+		this.addChanges(queue, tail, value);
+		this.eaten++;
+		// the buffers are left clean for the next update
+		for(int k = 0; k < tail; k++)
+			affected[queue[k]] = false;
+	}
+
+	/**
+	 * merge new distances into the sorted list of the changes
+	 * @param cells the squares of the new distances, in any order
+	 * @param nbrCells number of squares
+	 * @param value value[cell] is the new distance of the square
+	 */
+	private void addChanges(int[] cells, int nbrCells, int[] value) {
+		int[] added = Arrays.copyOf(cells, nbrCells);
+		Arrays.sort(added);
+		int[] oldCells = this.changedCells, oldDistances = this.changedDistances;
+		int[] newCells = new int[oldCells.length + nbrCells];
+		int[] newDistances = new int[newCells.length];
+		int size = 0, o = 0, a = 0;
+		while(o < oldCells.length || a < nbrCells) {
+			if(a == nbrCells || (o < oldCells.length && oldCells[o] < added[a])) {
+				newCells[size] = oldCells[o];
+				newDistances[size++] = oldDistances[o++];
+			}
+			else {
+				if(o < oldCells.length && oldCells[o] == added[a])
+					o++;
+				newCells[size] = added[a];
+				newDistances[size++] = value[added[a++]];
+			}
+		}
+		this.changedCells = Arrays.copyOf(newCells, size);
+		this.changedDistances = Arrays.copyOf(newDistances, size);
+	}
+
+	/**
+	 * breadth first search from squares whose distance is already known
+	 * @param queue the starting squares, ordered by distance
+	 * @param tail number of starting squares
+	 */
+	private void propagate(int[] queue, int tail) {
+		int head = 0;
+		int[] neighbors = new int[4];
+		while(head < tail) {
+			int cell = queue[head++];
+			int nbr = this.neighbors(cell, neighbors);
+			for(int k = 0; k < nbr; k++) {
+				int next = neighbors[k];
+				if(this.distance[next] == UNREACHABLE) {
+					this.distance[next] = this.distance[cell] + 1;
+					queue[tail++] = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * relaxation restricted to the affected squares; starting distances are not ordered so a square may be improved several times
+	 * @param level the level of the squares
+	 * @param queue the squares of the affected area that already have a distance, then the circular queue of the relaxation
+	 *              (a square is never queued twice at the same time, so the queue never holds more than the affected squares)
+	 * @param nbrSeeds number of squares at the beginning of the queue
+	 * @param affected the squares to recompute
+	 * @param queued false for every square, left so
+	 * @param value the distances of the affected squares, updated
+	 */
+	private static void relax(Level level, int[] queue, int nbrSeeds, boolean[] affected, boolean[] queued, int[] value) {
+		int head = 0, size = nbrSeeds;
+		for(int k = 0; k < nbrSeeds; k++) {
+			queued[queue[k]] = true;
+		}
+		while(size > 0) {
+			int cell = queue[head];
+			head = (head + 1) % queue.length;
+			size--;
+			queued[cell] = false;
+			for(int d = 0; d < 4; d++) {
+				int next = level.getNeighbor(cell, d);
+				if(next >= 0 && affected[next] && value[cell] + 1 < value[next]) {
+					value[next] = value[cell] + 1;
+					if(!queued[next]) {
+						queue[(head + size) % queue.length] = next;
+						size++;
+						queued[next] = true;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * check the field against a breadth first search from the remaining gums
+	 * @param state the belief state of the gums
+	 * @return true if every distance is right
+	 */
+	private boolean invariant(BeliefState state) {
+		int size = this.distance.length;
+		int[] expected = new int[size];
+		int[] queue = new int[size];
+		int tail = 0;
+		for(int cell = 0; cell < size; cell++) {
+			expected[cell] = state.hasGum(cell) ? 0 : UNREACHABLE;
+			if(state.hasGum(cell))
+				queue[tail++] = cell;
+		}
+		int[] neighbors = new int[4];
+		for(int head = 0; head < tail; head++) {
+			int cell = queue[head];
+			int nbr = this.neighbors(cell, neighbors);
+			for(int k = 0; k < nbr; k++) {
+				if(expected[neighbors[k]] == UNREACHABLE) {
+					expected[neighbors[k]] = expected[cell] + 1;
+					queue[tail++] = neighbors[k];
+				}
+			}
+		}
+		for(int cell = 0; cell < size; cell++) {
+			if(expected[cell] != this.get(cell))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * list the squares that are not walls around a square
+	 * @param cell index of the square (Level.getCellIndex)
+	 * @param neighbors array filled with the indexes of the neighbors
+	 * @return the number of neighbors
+	 */
+	private int neighbors(int cell, int[] neighbors) {
+		int nbr = 0;
+		for(int d = 0; d < 4; d++) {
+			int next = this.level.getNeighbor(cell, d);
+			if(next >= 0)
+				neighbors[nbr++] = next;
+		}
+		return nbr;
+	}
+}
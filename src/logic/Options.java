@@ -0,0 +1,145 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * class used to read the options of the command line tools (BatchRunner, Tournament, Tuner, ScalingBenchmark,
+ * PacManLauncher, ReplayPlayer, data.MazeGenerator), given as pairs "--name value" or as flags "--name" without
+ * value. The options common to the tools are read the same way by all of them:
+ * --maps 1,2,3 (the cycle of maps), --seed N (the first seed), --games N (the number of seeds), --seeds FIRST-LAST
+ * (same as --seed FIRST --games LAST-FIRST+1) and --threads N (the number of games played at the same time).
+ * Each tool lists the options it accepts, any other option is refused.
+ */
+public class Options {
+	private HashMap<String, String> values = new HashMap<>();
+
+	/**
+	 * read the options of a command line
+	 * @param args the arguments of the command line
+	 * @param accepted the options accepted by the tool
+	 * @throws IllegalArgumentException if an option is not accepted or has no value
+	 */
+	public Options(String[] args, String... accepted) {
+		this(args, Collections.emptyList(), accepted);
+	}
+
+	/**
+	 * read the options of a command line
+	 * @param args the arguments of the command line
+	 * @param flags the options accepted by the tool without value
+	 * @param accepted the options accepted by the tool with a value
+	 * @throws IllegalArgumentException if an option is not accepted or has no value
+	 */
+	public Options(String[] args, List<String> flags, String... accepted) {
+		List<String> names = Arrays.asList(accepted);
+		for(int i = 0; i < args.length; i++) {
+			if(flags.contains(args[i])) {
+				this.values.put(args[i], "");
+				continue;
+			}
+			if(!names.contains(args[i]))
+				throw new IllegalArgumentException("Unknown option " + args[i] + ", accepted: " + names + " " + flags);
+			if(i + 1 == args.length)
+				throw new IllegalArgumentException("No value for the option " + args[i]);
+			this.values.put(args[i], args[++i]);
+		}
+		String range = this.values.remove("--seeds");
+		if(range != null) {
+			String[] seeds = range.split("-");
+			long first = Long.parseLong(seeds[0].trim()), last = Long.parseLong(seeds[seeds.length - 1].trim());
+			if(last < first)
+				throw new IllegalArgumentException("empty range of seeds " + range);
+			this.values.put("--seed", Long.toString(first));
+			this.values.put("--games", Long.toString(last - first + 1));
+		}
+	}
+
+	/**
+	 * check whether an option is given
+	 * @param name the name of the option
+	 * @return true if the option is on the command line
+	 */
+	public boolean has(String name) {
+		return this.values.containsKey(name);
+	}
+
+	public String getString(String name, String defaultValue) {
+		return this.values.getOrDefault(name, defaultValue);
+	}
+
+	public int getInt(String name, int defaultValue) {
+		String value = this.values.get(name);
+		return value == null ? defaultValue : Integer.parseInt(value.trim());
+	}
+
+	public long getLong(String name, long defaultValue) {
+		String value = this.values.get(name);
+		return value == null ? defaultValue : Long.parseLong(value.trim());
+	}
+
+	public double getDouble(String name, double defaultValue) {
+		String value = this.values.get(name);
+		return value == null ? defaultValue : Double.parseDouble(value.trim());
+	}
+
+	/**
+	 * return the value of an option made of numbers separated by commas
+	 * @param name the name of the option
+	 * @param defaultValue the value when the option is not given
+	 * @return the numbers
+	 */
+	public int[] getInts(String name, int[] defaultValue) {
+		String value = this.values.get(name);
+		if(value == null)
+			return defaultValue;
+		String[] numbers = value.split(",");
+		int[] result = new int[numbers.length];
+		for(int i = 0; i < numbers.length; i++)
+			result[i] = Integer.parseInt(numbers[i].trim());
+		return result;
+	}
+
+	/**
+	 * return the cycle of maps (--maps)
+	 * @param defaultValue the maps when the option is not given
+	 * @return the numbers of the maps
+	 */
+	public int[] getMaps(int[] defaultValue) {
+		return this.getInts("--maps", defaultValue);
+	}
+
+	/**
+	 * return the first seed (--seed or --seeds)
+	 * @param defaultValue the seed when the option is not given
+	 * @return the first seed
+	 */
+	public long getSeed(long defaultValue) {
+		return this.getLong("--seed", defaultValue);
+	}
+
+	/**
+	 * return the number of games, one per seed (--games or --seeds)
+	 * @param defaultValue the number when the option is not given
+	 * @return the number of games, at least 1
+	 */
+	public int getGames(int defaultValue) {
+		int games = this.getInt("--games", defaultValue);
+		if(games < 1)
+			throw new IllegalArgumentException("no game to play");
+		return games;
+	}
+
+	/**
+	 * return the number of games played at the same time (--threads)
+	 * @return the number of threads, the number of cores by default
+	 */
+	public int getThreads() {
+		int threads = this.getInt("--threads", Runtime.getRuntime().availableProcessors());
+		if(threads < 1)
+			throw new IllegalArgumentException("no thread to play");
+		return threads;
+	}
+}
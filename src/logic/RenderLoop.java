@@ -0,0 +1,137 @@
+package logic;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import view.Canvas;
+
+/**
+ * class used to display a game on its own thread, at a fixed number of frames per second, while the game is played
+ * on another thread. The game thread only publishes, after each move and at each level, an immutable GameSnapshot
+ * of the engine: the render thread always draws the last snapshot published and slides the figures from where they
+ * are drawn to their squares in that snapshot during one move period. A slow decision of the AI therefore leaves
+ * the figures on their squares while the window keeps being drawn, and a slow display only skips snapshots: the game
+ * never waits for it (the gums eaten during skipped moves are removed at once).
+ * The render thread is the only one drawing on the Canvas; Swing paints it on its own thread as before.
+ */
+public class RenderLoop implements GameObserver {
+	public static final int DEFAULT_FPS = 60;
+
+	/**
+	 * a snapshot published by the game thread
+	 */
+	private static final class Frame {
+		private final GameSnapshot snapshot;
+		/** number of levels started before this snapshot, a new level is drawn from scratch */
+		private final int generation;
+		private final String move;
+		private final long time;
+
+		private Frame(GameSnapshot snapshot, int generation, String move) {
+			this.snapshot = snapshot;
+			this.generation = generation;
+			this.move = move;
+			this.time = System.nanoTime();
+		}
+	}
+
+	private SwingView view;
+	private long framePeriod;
+	private long movePeriod;
+	private AtomicReference<Frame> latest;
+	private int generation;
+	private Thread thread;
+	private volatile boolean running;
+
+	/**
+	 * create the loop, which draws nothing before start
+	 * @param view the view drawing the figures, used only by the render thread once started
+	 * @param fps the number of frames drawn per second
+	 * @param moveRate the number of moves per second played by the game, 0 if the game does not wait between moves
+	 *                 (the figures then jump to their squares)
+	 */
+	public RenderLoop(SwingView view, int fps, int moveRate) {
+		if(fps <= 0)
+			throw new IllegalArgumentException("at least one frame per second");
+		this.view = view;
+		this.framePeriod = 1000000000L / fps;
+		this.movePeriod = moveRate > 0 ? 1000000000L / moveRate : 0;
+		this.latest = new AtomicReference<Frame>();
+	}
+
+	/**
+	 * start the render thread
+	 */
+	public void start() {
+		// the loop paces the frames itself
+		Canvas.getCanvas().setFrameDelay(0);
+		this.running = true;
+		this.thread = new Thread(this::run, "render");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * draw the last snapshot published then stop the render thread
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public void stop() throws InterruptedException {
+		this.running = false;
+		if(this.thread != null) {
+			this.thread.join();
+		}
+	}
+
+	@Override
+	public void levelStarted(GameEngine engine) {
+		this.generation++;
+		this.latest.set(new Frame(engine.snapshot(), this.generation, null));
+	}
+
+	@Override
+	public void moved(GameEngine engine, String move) {
+		this.latest.set(new Frame(engine.snapshot(), this.generation, move));
+	}
+
+	private void run() {
+		Frame shown = null;
+		int shownTicks = 0;
+		boolean settled = true;
+		long next = System.nanoTime();
+		boolean last = false;
+		while(!last) {
+			last = !this.running;
+			Frame frame = this.latest.get();
+			if(frame != null && frame != shown) {
+				GameSnapshot snapshot = frame.snapshot;
+				if(shown == null || frame.generation != shown.generation) {
+					this.view.showLevel(snapshot.getLevels()[snapshot.getLevelIndex()], snapshot.getState(), snapshot.getScore(), snapshot.getLife());
+				}
+				else {
+					this.view.slideTo(snapshot.getState(), frame.move, snapshot.getScore(), snapshot.getLife(), snapshot.getTicks() != shownTicks + 1);
+				}
+				shown = frame;
+				shownTicks = snapshot.getTicks();
+				settled = frame.move == null;
+			}
+			if(!settled) {
+				double fraction = this.movePeriod == 0 || last ? 1 : (double)(System.nanoTime() - shown.time) / this.movePeriod;
+				this.view.interpolate(fraction);
+				settled = fraction >= 1;
+			}
+			next += this.framePeriod;
+			long wait = next - System.nanoTime();
+			if(wait > 0) {
+				try {
+					Thread.sleep(wait / 1000000, (int)(wait % 1000000));
+				}
+				catch(InterruptedException e) {
+					return;
+				}
+			}
+			else {
+				// too slow for the frame rate: start again from now instead of drawing late frames in a burst
+				next = System.nanoTime();
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import data.Level;
+
+/**
+ * class used to play again a replay written by ReplayRecorder.
+ * The game is simulated again on a GameEngine seeded like the recorded game, with the recorded moves of Pacman and
+ * of the ghosts: no AI is run, so a replay is simulated as fast as the engine moves. The player can jump to any move
+ * (from the start of the game, a jump backwards simulates the game again) then go on move by move, with or without
+ * the Swing view; at the end, the simulated game is checked against the end written in the replay.
+ *
+ * Usage: java logic.ReplayPlayer FILE [--tick N] [--snapshot FILE] [--swing] [--fast N] [--explain]
+ *   --tick N           stop at move N and print the state of the game
+ *   --snapshot FILE    write the game of move N to a GameSnapshot file, to study it again without the replay
+ *   --swing            display the game from move N (or from the start) to the end
+ *   --fast N           with --swing, redraw once every N moves without animation
+ *   --explain          run the AI on the state of move N and print its analysis of every move
+ */
+public class ReplayPlayer {
+	private long seed;
+	private Level[] levels;
+	private ByteBuffer events;
+	private int firstEvent;
+	private GameEngine engine;
+	private boolean started;
+	private boolean ended;
+	private int endScore, endLife, endTicks;
+
+	/**
+	 * read a replay, the game is ready to be played from its start
+	 * @param file the file written by ReplayRecorder
+	 * @throws IOException if the file cannot be read or is not a replay
+	 */
+	public ReplayPlayer(String file) throws IOException {
+		try(FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			this.events = ByteBuffer.allocate((int)channel.size());
+			while(this.events.hasRemaining() && channel.read(this.events) >= 0);
+		}
+		this.events.flip();
+		if(this.events.remaining() < 14 || this.events.getInt() != ReplayRecorder.MAGIC)
+			throw new IOException(file + " is not a replay");
+		byte version = this.events.get();
+		if(version != ReplayRecorder.VERSION)
+			throw new IOException("unknown version " + version + " of replay");
+		this.seed = this.events.getLong();
+		this.levels = new Level[Byte.toUnsignedInt(this.events.get())];
+		for(int i = 0; i < this.levels.length; i++) {
+			this.levels[i] = new Level(this.events.getInt());
+		}
+		this.firstEvent = this.events.position();
+		this.rewind();
+	}
+
+	/**
+	 * go back to the start of the game, on a new engine
+	 */
+	public void rewind() {
+		this.engine = new GameEngine(this.levels, this.seed);
+		this.events.position(this.firstEvent);
+		this.started = false;
+		this.ended = false;
+	}
+
+	/**
+	 * play the next recorded move, starting the levels met on the way
+	 * @return false if the replay has no move left
+	 */
+	public boolean next() {
+		while(this.events.hasRemaining()) {
+			int event = this.events.get() & 0xff;
+			switch(event & ReplayRecorder.KIND) {
+			case ReplayRecorder.LEVEL:
+				int index = Byte.toUnsignedInt(this.events.get());
+				if(this.started) {
+					this.engine.nextLevel();
+				}
+				else {
+					this.engine.start();
+					this.started = true;
+				}
+				if(this.engine.getLevelIndex() != index)
+					throw new IllegalStateException("replay out of sync: level " + index + " expected");
+				break;
+			case ReplayRecorder.MOVE:
+				int[] ghostMoves = new int[this.engine.getState().getNbrOfGhost()];
+				for(int k = 0; k < ghostMoves.length; k += 2) {
+					int pair = this.events.get();
+					ghostMoves[k] = pair & ReplayRecorder.NO_MOVE;
+					if(k + 1 < ghostMoves.length)
+						ghostMoves[k + 1] = pair >> 4 & ReplayRecorder.NO_MOVE;
+				}
+				for(int k = 0; k < ghostMoves.length; k++) {
+					if(ghostMoves[k] == ReplayRecorder.NO_MOVE)
+						ghostMoves[k] = -1;
+				}
+				this.engine.step(GameEngine.MOVES[event & 3], ghostMoves);
+				return true;
+			case ReplayRecorder.END:
+				this.endScore = this.events.getInt();
+				this.endLife = this.events.getInt();
+				this.endTicks = this.events.getInt();
+				this.ended = true;
+				return false;
+			default:
+				throw new IllegalStateException("unknown event " + event + " in replay");
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * jump to a move of the game
+	 * @param tick the number of moves already played, the end of the replay if it has fewer moves
+	 */
+	public void seek(int tick) {
+		if(tick < this.engine.getTicks()) {
+			this.rewind();
+		}
+		while(this.engine.getTicks() < tick && this.next());
+	}
+
+	/**
+	 * return the engine replaying the game, in the state of the last move played
+	 * @return the engine
+	 */
+	public GameEngine getEngine() {
+		return this.engine;
+	}
+
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * check whether the simulated game ends like the recorded game
+	 * @return true if the end of the replay was reached with the recorded score, lives and number of moves
+	 */
+	public boolean isConsistent() {
+		return this.ended && this.endScore == this.engine.getScore() && this.endLife == this.engine.getLife()
+				&& this.endTicks == this.engine.getTicks();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			System.err.println("Usage: java logic.ReplayPlayer FILE [--tick N] [--snapshot FILE] [--swing] [--fast N] [--explain]");
+			return;
+		}
+		Options options = new Options(Arrays.copyOfRange(args, 1, args.length), Arrays.asList("--swing", "--explain"),
+				"--tick", "--snapshot", "--fast");
+		int tick = options.getInt("--tick", -1);
+		int fastForward = options.getInt("--fast", 0);
+		boolean swing = options.has("--swing"), explain = options.has("--explain");
+		String snapshotFile = options.getString("--snapshot", null);
+		ReplayPlayer player = new ReplayPlayer(args[0]);
+		System.out.println("seed: " + player.getSeed());
+		long elapsedTime = System.nanoTime();
+		if(tick >= 0) {
+			player.seek(tick);
+		}
+		else if(!swing) {
+			while(player.next());
+		}
+		elapsedTime = System.nanoTime() - elapsedTime;
+		GameEngine engine = player.getEngine();
+		System.out.println("move " + engine.getTicks() + " (level " + engine.getLevelIndex() + ") reached in " + elapsedTime / 1e6 + " ms");
+		if(tick >= 0) {
+			System.out.print(engine.getState());
+		}
+		if(snapshotFile != null) {
+			engine.snapshot().write(snapshotFile);
+			System.out.println("snapshot of move " + engine.getTicks() + " written to " + snapshotFile);
+		}
+		if(explain) {
+			// the visits of the recorded game are not replayed: the AI decides as if the game started here
+			AIContext context = new AIContext(player.getSeed());
+			context.setDeadline(0);
+			AI.search(context, engine.getVisibleBeliefState().get(0));
+		}
+		if(swing) {
+			SwingView view = new SwingView(fastForward);
+			engine.addObserver(view);
+			if(player.started) {
+				view.levelStarted(engine);
+			}
+			while(player.next());
+		}
+		if(tick < 0 || swing) {
+			System.out.println(player.isConsistent() ? "end of the replay: score " + engine.getScore() + ", " + engine.getLife() + " lives"
+					: "the replay does not end like the recorded game");
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * class used to record a game in a compact binary replay, as a GameObserver of its GameEngine.
+ * The file starts with a header (MAGIC, VERSION, the seed of the game and the numbers of the maps of the cycle),
+ * followed by one event per level started and one event per move. The first byte of an event gives its kind in its
+ * two high bits; a move keeps the direction of Pacman in its two low bits and is followed by a nibble per ghost
+ * (its direction, NO_MOVE when it did not move). The last event gives the score, the lives and the number of moves
+ * when the recording was closed. A move costs 1 + ghosts / 2 bytes, gathered in a direct buffer written to a
+ * FileChannel only when it is full, so that recording does not slow the game down. ReplayPlayer reads the file.
+ */
+public class ReplayRecorder implements GameObserver, Closeable {
+	static final int MAGIC = 0x504d5250; // "PMRP"
+	static final byte VERSION = 1;
+	static final int MOVE = 0x00;
+	static final int LEVEL = 0x40;
+	static final int END = 0x80;
+	static final int KIND = 0xc0;
+	static final int NO_MOVE = 0x0f;
+	// the number of levels and the index of a level are written on an unsigned byte
+	static final int MAX_LEVELS = 0xff;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private GameEngine engine;
+
+	/**
+	 * create the file of the replay and write its header, the recorder must then be added to the observers of the
+	 * engine before the game starts
+	 * @param file the file of the replay, replaced if it exists
+	 * @param engine the engine playing the game
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalArgumentException if the cycle has more than MAX_LEVELS levels or a level is not a numbered map
+	 */
+	public ReplayRecorder(String file, GameEngine engine) throws IOException {
+		int[] maps = engine.getMapNumbers();
+		if(maps.length > MAX_LEVELS)
+			throw new IllegalArgumentException("a replay holds at most " + MAX_LEVELS + " levels, not " + maps.length);
+		for(int map: maps) {
+			if(map <= 0)
+				throw new IllegalArgumentException("only the levels of numbered maps can be replayed");
+		}
+		this.engine = engine;
+		this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.buffer.putInt(MAGIC).put(VERSION).putLong(engine.getSeed()).put((byte)maps.length);
+		for(int map: maps) {
+			this.buffer.putInt(map);
+		}
+	}
+
+	@Override
+	public void levelStarted(GameEngine engine) {
+		this.reserve(2);
+		this.buffer.put((byte)LEVEL).put((byte)engine.getLevelIndex());
+	}
+
+	@Override
+	public void moved(GameEngine engine, String move) {
+		int[] ghosts = engine.getGhostMoves();
+		this.reserve(1 + (ghosts.length + 1) / 2);
+		this.buffer.put((byte)(MOVE | GameEngine.indexOf(move)));
+		for(int k = 0; k < ghosts.length; k += 2) {
+			int low = ghosts[k] < 0 ? NO_MOVE : ghosts[k];
+			int high = k + 1 == ghosts.length || ghosts[k + 1] < 0 ? NO_MOVE : ghosts[k + 1];
+			this.buffer.put((byte)(low | high << 4));
+		}
+	}
+
+	/**
+	 * write the end of the game (score, lives and moves) and close the file, nothing is recorded afterwards
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.channel == null)
+			return;
+		try {
+			this.engine.removeObserver(this);
+			this.reserve(13);
+			this.buffer.put((byte)END).putInt(this.engine.getScore()).putInt(this.engine.getLife()).putInt(this.engine.getTicks());
+			this.flush();
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+		finally {
+			this.channel.close();
+			this.channel = null;
+		}
+	}
+
+	/**
+	 * make room for the next event, writing the buffer to the file if needed
+	 */
+	private void reserve(int size) {
+		if(this.buffer.remaining() < size)
+			this.flush();
+	}
+
+	private void flush() {
+		try {
+			this.buffer.flip();
+			while(this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
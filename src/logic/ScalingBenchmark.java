@@ -0,0 +1,143 @@
+package logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+
+import data.Level;
+import data.MazeGenerator;
+
+/**
+ * class used to measure how the game scales with the size of the maze.
+ * For every size, a maze is generated by MazeGenerator with the same parameters and seed, then the benchmark measures
+ * the time to load the level (visibility, topology), the memory the level keeps, the time of a move of the GameEngine
+ * (ghosts and belief state of Pacman) and the time of the decisions of the AI over the first moves of a game.
+ * The memory of the AI is measured twice: the bytes allocated during a decision by all the threads (the search and
+ * its workers: belief states, gum fields, danger field), and the memory the engine and the AIContext still keep
+ * after the moves (visit counts, endgame tour, gum fields of the current state).
+ * The result is one CSV line per size, to be plotted against the size.
+ *
+ * Usage: java logic.ScalingBenchmark [--sizes 25,50,100,200] [--moves N] [--deadline ms] [--density 1.0]
+ *                                   [--loops 0.15] [--ghosts 2] [--super 4] [--seed N] [--output file]
+ */
+public class ScalingBenchmark {
+	private int[] sizes = {25, 50, 100, 200};
+	private int moves = 50;
+	private long deadline = 200;
+	private double density = 1.0;
+	private double loopRatio = 0.15;
+	private int ghosts = 2;
+	private int superGums = 4;
+	private long seed = 1;
+
+	public static void main(String[] args) throws IOException {
+		ScalingBenchmark benchmark = new ScalingBenchmark();
+		Options options = new Options(args, "--sizes", "--moves", "--deadline", "--density", "--loops", "--ghosts", "--super",
+				"--seed", "--output");
+		benchmark.sizes = options.getInts("--sizes", benchmark.sizes);
+		benchmark.moves = options.getInt("--moves", benchmark.moves);
+		benchmark.deadline = options.getLong("--deadline", benchmark.deadline);
+		benchmark.density = options.getDouble("--density", benchmark.density);
+		benchmark.loopRatio = options.getDouble("--loops", benchmark.loopRatio);
+		benchmark.ghosts = options.getInt("--ghosts", benchmark.ghosts);
+		benchmark.superGums = options.getInt("--super", benchmark.superGums);
+		benchmark.seed = options.getSeed(benchmark.seed);
+		String outputFile = options.getString("--output", null);
+		PrintStream out = outputFile == null ? System.out : new PrintStream(outputFile);
+		try {
+			benchmark.run(out);
+		}
+		finally {
+			if(out != System.out)
+				out.close();
+		}
+	}
+
+	/**
+	 * measure every size and write one CSV line per size
+	 * @param out the output of the CSV
+	 * @throws IOException if the mazes cannot be written
+	 */
+	public void run(PrintStream out) throws IOException {
+		File directory = Files.createTempDirectory("mazes").toFile();
+		out.println("size,squares,gums,load_ms,level_mb,engine_step_ms,moves,decision_p50_ms,decision_p99_ms,decision_max_ms,"
+				+ "decision_alloc_mb,game_mb");
+		for(int size : this.sizes) {
+			File file = new File(directory, "maze" + size + ".map");
+			MazeGenerator.write(new MazeGenerator(size, this.density, this.loopRatio, this.ghosts, this.superGums, this.seed).generate(), "blue", file.getPath());
+			long memory = ScalingBenchmark.usedMemory();
+			long loadTime = System.nanoTime();
+			Level level = new Level(file.getPath());
+			loadTime = System.nanoTime() - loadTime;
+			memory = ScalingBenchmark.usedMemory() - memory;
+
+			long gameMemory = ScalingBenchmark.usedMemory();
+			GameEngine engine = new GameEngine(new Level[] {level}, this.seed);
+			AIContext context = new AIContext(this.seed);
+			context.setDeadline(this.deadline);
+			context.setFeedbackOutput(null);
+			long[] decisions = new long[this.moves];
+			long stepTime = 0, allocated = 0;
+			int played = 0;
+			boolean measured = ScalingBenchmark.allocatedBytes() >= 0;
+			engine.start();
+			while(played < this.moves && !engine.isGameOver() && !engine.isLevelCleared()) {
+				long allocatedBytes = ScalingBenchmark.allocatedBytes();
+				long elapsedTime = System.nanoTime();
+				String move = AI.findNextMove(context, engine.getVisibleBeliefState().get(0));
+				decisions[played++] = System.nanoTime() - elapsedTime;
+				allocated += ScalingBenchmark.allocatedBytes() - allocatedBytes;
+				elapsedTime = System.nanoTime();
+				engine.step(move);
+				stepTime += System.nanoTime() - elapsedTime;
+			}
+			gameMemory = ScalingBenchmark.usedMemory() - gameMemory;
+			Reference.reachabilityFence(engine);
+			Reference.reachabilityFence(context);
+			decisions = Arrays.copyOf(decisions, played);
+			Arrays.sort(decisions);
+			out.println(size + "," + level.getGamePositions().size() + "," + level.getNbGom() + "," + milliseconds(loadTime) + ","
+					+ String.format(Locale.ROOT, "%.1f", memory / 1048576.0) + "," + milliseconds(played == 0 ? 0 : stepTime / played) + ","
+					+ played + "," + milliseconds(BatchRunner.percentile(decisions, 50)) + "," + milliseconds(BatchRunner.percentile(decisions, 99))
+					+ "," + milliseconds(BatchRunner.percentile(decisions, 100)) + ","
+					+ (!measured ? "" : String.format(Locale.ROOT, "%.2f", allocated / 1048576.0 / Math.max(played, 1))) + ","
+					+ String.format(Locale.ROOT, "%.1f", gameMemory / 1048576.0));
+			out.flush();
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * return the bytes allocated so far by all the live threads (the AI searches on a pool of its own)
+	 * @return the number of bytes, -1 if the JVM does not measure it
+	 */
+	private static long allocatedBytes() {
+		if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		if(!threads.isThreadAllocatedMemoryEnabled())
+			return -1;
+		long total = 0;
+		for(long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			if(bytes > 0)
+				total += bytes;
+		}
+		return total;
+	}
+
+	private static String milliseconds(long nanoseconds) {
+		return String.format(Locale.ROOT, "%.3f", nanoseconds / 1e6);
+	}
+}
@@ -0,0 +1,227 @@
+package logic;
+
+import java.util.ArrayList;
+
+/**
+ * class used to describe the outcome of one decision of the AI: the score of every root action
+ * together with the effort spent to compute it
+ */
+public class SearchResult {
+
+	/**
+	 * evaluation of one root action
+	 */
+	public static class ActionScore {
+		private String action;
+		private int scenarios;
+		private boolean invisible;
+		private double[] scoreByDepth;
+		private int completedDepth;
+		private int depthReached;
+		private long nodes;
+		private int horizon;
+
+		ActionScore(String action, int scenarios, boolean invisible, int maxDepth) {
+			this.action = action;
+			this.scenarios = scenarios;
+			this.invisible = invisible;
+			this.scoreByDepth = new double[maxDepth + 1];
+		}
+
+		/**
+		 * start a new iteration of the search below this action
+		 * @param horizon number of macro-actions explored by the iteration
+		 */
+		void startIteration(int horizon) {
+			this.horizon = horizon;
+		}
+
+		/**
+		 * count one more expanded node and remember the deepest level reached
+		 * @param remaining depth still to explore below the node
+		 */
+		void visit(int remaining) {
+			this.nodes++;
+			if(this.horizon - remaining > this.depthReached)
+				this.depthReached = this.horizon - remaining;
+		}
+
+		/**
+		 * store the score of a completed iteration, together with the effort spent by the worker
+		 * @param score worst case score computed with the given horizon
+		 * @param horizon number of macro-actions explored
+		 * @param worker counters filled by the worker during the iteration
+		 */
+		synchronized void publish(double score, int horizon, ActionScore worker) {
+			this.scoreByDepth[horizon] = score;
+			this.completedDepth = horizon;
+			this.nodes = worker.nodes;
+			this.depthReached = worker.depthReached;
+		}
+
+		/**
+		 * return the action (among PacManLauncher.UP/DOWN/LEFT/RIGHT)
+		 * @return the action
+		 */
+		public String getAction() {
+			return this.action;
+		}
+
+		/**
+		 * return the worst case score of the action for the deepest completed iteration
+		 * @return the worst case score of the action, -infinity if no iteration completed
+		 */
+		public synchronized double getScore() {
+			return this.completedDepth > 0 ? this.scoreByDepth[this.completedDepth] : Double.NEGATIVE_INFINITY;
+		}
+
+		/**
+		 * return the worst case score of the action for a given horizon
+		 * @param horizon number of macro-actions explored, at most getCompletedDepth()
+		 * @return the worst case score of the action
+		 */
+		public synchronized double getScore(int horizon) {
+			return this.scoreByDepth[horizon];
+		}
+
+		/**
+		 * return the number of belief states the action may lead to
+		 * @return the number of belief states the action may lead to
+		 */
+		public int getScenarios() {
+			return this.scenarios;
+		}
+
+		/**
+		 * return true if the action leads to an uncertain situation (some ghosts are not visible)
+		 * @return true if the action leads to an uncertain situation
+		 */
+		public boolean isInvisible() {
+			return this.invisible;
+		}
+
+		/**
+		 * return the horizon of the deepest iteration completed before the deadline
+		 * @return the number of macro-actions fully explored, 0 if none
+		 */
+		public synchronized int getCompletedDepth() {
+			return this.completedDepth;
+		}
+
+		/**
+		 * return the deepest level of macro-actions explored below this action
+		 * @return the deepest level explored
+		 */
+		public synchronized int getDepthReached() {
+			return this.depthReached;
+		}
+
+		/**
+		 * return the number of nodes evaluated below this action
+		 * @return the number of nodes evaluated
+		 */
+		public synchronized long getNodes() {
+			return this.nodes;
+		}
+	}
+
+	private ArrayList<ActionScore> actions;
+	private String bestAction;
+	private String reflex;
+	private String reflexName;
+	private boolean timedOut;
+
+	/**
+	 * construct an empty result
+	 */
+	public SearchResult() {
+		this.actions = new ArrayList<ActionScore>();
+	}
+
+	ActionScore addAction(String action, int scenarios, boolean invisible, int maxDepth) {
+		ActionScore score = new ActionScore(action, scenarios, invisible, maxDepth);
+		this.actions.add(score);
+		return score;
+	}
+
+	void setBestAction(String bestAction) {
+		this.bestAction = bestAction;
+	}
+
+	/**
+	 * record that the move was chosen by a reflex instead of the search
+	 * @param name name of the reflex
+	 * @param action the move chosen by the reflex
+	 */
+	void setReflex(String name, String action) {
+		this.reflexName = name;
+		this.reflex = action;
+		this.bestAction = action;
+	}
+
+	void setTimedOut(boolean timedOut) {
+		this.timedOut = timedOut;
+	}
+
+	/**
+	 * return the chosen move
+	 * @return the chosen move (among PacManLauncher.UP/DOWN/LEFT/RIGHT)
+	 */
+	public String getBestAction() {
+		return this.bestAction;
+	}
+
+	/**
+	 * return the move chosen by a reflex
+	 * @return the move chosen by a reflex, null if the move results from the search
+	 */
+	public String getReflex() {
+		return this.reflex;
+	}
+
+	/**
+	 * return the name of the reflex that chose the move
+	 * @return the name of the reflex, null if the move results from the search
+	 */
+	public String getReflexName() {
+		return this.reflexName;
+	}
+
+	/**
+	 * return true if the deadline was hit before the search completed
+	 * @return true if the move was chosen from a partial search
+	 */
+	public boolean isTimedOut() {
+		return this.timedOut;
+	}
+
+	/**
+	 * return the evaluation of each root action
+	 * @return the evaluation of each root action
+	 */
+	public ArrayList<ActionScore> getActions() {
+		return this.actions;
+	}
+
+	/**
+	 * return the total number of nodes evaluated
+	 * @return the total number of nodes evaluated
+	 */
+	public long getNodes() {
+		long nodes = 0;
+		for(ActionScore score: this.actions)
+			nodes += score.getNodes();
+		return nodes;
+	}
+
+	/**
+	 * return the deepest level of macro-actions explored
+	 * @return the deepest level explored
+	 */
+	public int getDepthReached() {
+		int depth = 0;
+		for(ActionScore score: this.actions)
+			depth = Math.max(depth, score.getDepthReached());
+		return depth;
+	}
+}
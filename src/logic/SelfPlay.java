@@ -0,0 +1,95 @@
+package logic;
+
+import data.Level;
+
+/**
+ * class used to play a level without display, square by square, as fast as the AI decides.
+ * Each game runs on its own GameEngine whose ghosts are seeded, so a game is replayed identically from its seed;
+ * the games of a SelfPlay share its read-only Level and can be played in parallel.
+ */
+public class SelfPlay {
+	private Level level;
+
+	/**
+	 * result of one game
+	 */
+	public static class Outcome {
+		private int score, life, ticks;
+		private boolean cleared;
+
+		Outcome(BeliefState state, int ticks) {
+			this.score = state.getScore();
+			this.life = state.getLife();
+			this.ticks = ticks;
+			this.cleared = state.getNbrOfGommes() == 0;
+		}
+
+		public int getScore() {
+			return this.score;
+		}
+
+		public int getLife() {
+			return this.life;
+		}
+
+		/**
+		 * return the number of moves of Pacman
+		 * @return the number of decisions of the AI
+		 */
+		public int getTicks() {
+			return this.ticks;
+		}
+
+		/**
+		 * check whether Pacman ate every gum of the level
+		 * @return true if the level was cleared
+		 */
+		public boolean isCleared() {
+			return this.cleared;
+		}
+
+		/**
+		 * check whether Pacman still has a life at the end of the game
+		 * @return true if Pacman survived
+		 */
+		public boolean hasSurvived() {
+			return this.life > 0;
+		}
+	}
+
+	/**
+	 * load a level
+	 * @param mapNumber number of the map (doc/mapN.map)
+	 */
+	public SelfPlay(int mapNumber) {
+		this.level = new Level(mapNumber);
+	}
+
+	/**
+	 * return the number of the map of the level
+	 * @return the number of the map
+	 */
+	public int getMapNumber() {
+		return this.level.getMapNumber();
+	}
+
+	/**
+	 * play the level until every gum is eaten, Pacman has no life left or the number of moves is reached
+	 * @param weights the weights of the heuristic of the AI
+	 * @param seed the seed of the ghosts and of the tie-break of the AI
+	 * @param maxTicks the maximum number of moves of Pacman
+	 * @return the result of the game
+	 */
+	public Outcome play(AIWeights weights, long seed, int maxTicks) {
+		// the games of a batch already fill the cores: each decision searches on the thread of its game, without deadline
+		AIContext context = new AIContext(weights, 0, seed);
+		context.setDeadline(0);
+		context.setFeedbackOutput(null);
+		GameEngine engine = new GameEngine(new Level[] {this.level}, seed);
+		engine.start();
+		while(!engine.isLevelCleared() && !engine.isGameOver() && engine.getTicks() < maxTicks) {
+			engine.step(AI.findNextMove(context, engine.getVisibleBeliefState().get(0)));
+		}
+		return new Outcome(engine.getState(), engine.getTicks());
+	}
+}
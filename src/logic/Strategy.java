@@ -0,0 +1,41 @@
+package logic;
+
+/**
+ * interface of a way of choosing the moves of Pacman during one game, played by BatchRunner.play and compared with
+ * the others by Tournament.
+ * A strategy is created for each game (see Tournament.register) and is only called by the thread of its game.
+ */
+public interface Strategy {
+
+	/**
+	 * choose the next move of Pacman
+	 * @param state the belief state of Pacman
+	 * @return the move (PacManLauncher.UP, DOWN, LEFT or RIGHT)
+	 */
+	String findNextMove(BeliefState state);
+
+	/**
+	 * called when the next level of the cycle starts, does nothing by default
+	 */
+	default void levelStarted() {
+	}
+
+	/**
+	 * return the strategy of the AI, searching with a context of its own game
+	 * @param context the context of the AI, reset at the start of every level
+	 * @return the strategy
+	 */
+	static Strategy of(AIContext context) {
+		return new Strategy() {
+			@Override
+			public String findNextMove(BeliefState state) {
+				return AI.findNextMove(context, state);
+			}
+
+			@Override
+			public void levelStarted() {
+				context.reset();
+			}
+		};
+	}
+}
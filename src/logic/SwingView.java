@@ -0,0 +1,270 @@
+package logic;
+
+import data.Level;
+import data.Score;
+import view.Canvas;
+
+/**
+ * class used to display a game played by a GameEngine in the Swing canvas.
+ * The view is a GameObserver: at each move of the engine, Pacman and the ghosts slide from their square to their new
+ * square (SPEED pixels per frame), the gum eaten disappears and the ghosts are drawn blue while they are frightened
+ * and only when Pacman sees them. Entities that jump (back to the start after a lost life, eaten ghosts) are moved
+ * at once. The view also reads the keyboard for the manual mode.
+ * In fast-forward, the figures jump from square to square without the frames in between and the canvas is only
+ * redrawn every few moves, without the pause of the animations; the game itself is not changed.
+ */
+public class SwingView implements GameObserver {
+	private static final String[] COLORS = {"redG", "blueG", "orangeG", "pinkG"};
+
+	private data.Map maps;
+	private Pacman pacman;
+	private Ghost[] ghost;
+	private String meilleurScore;
+	private int score, life;
+	/** pixels (x, y) of Pacman then of each ghost at the start and at the end of the current slide, see slideTo */
+	private int[] from, to;
+	private boolean walking;
+	/** the square of the gum removed at the end of the slide, null if none */
+	private Position eaten;
+	/** number of moves between two redraws in fast-forward, 0 to animate every move */
+	private int fastForward;
+	private int moves;
+
+	/**
+	 * open the window of the game, every move is animated
+	 */
+	public SwingView() {
+		this(0);
+	}
+
+	/**
+	 * open the window of the game
+	 * @param fastForward 0 to animate every move, N to jump square by square and redraw once every N moves
+	 */
+	public SwingView(int fastForward) {
+		this.fastForward = fastForward;
+		Canvas.getCanvas().setFrameDelay(fastForward > 0 ? 0 : 5);
+	}
+
+	/**
+	 * create the figures of the level and draw them in the state of the engine (the start of the level, or any move
+	 * of the game when a replay jumps to it)
+	 */
+	@Override
+	public void levelStarted(GameEngine engine) {
+		this.showLevel(engine.getLevel(), engine.getState(), engine.getScore(), engine.getLife());
+	}
+
+	/**
+	 * create the figures of a level and draw them in a state of the game
+	 * @param level the level played
+	 * @param state the true game
+	 * @param score the score to display
+	 * @param life the lives to display
+	 */
+	void showLevel(Level level, BeliefState state, int score, int life) {
+		this.maps = new data.Map(level);
+		// the figures of the previous level would stay under the new ones; a map too large for
+		// the window at 1 pixel per square enlarges it
+		Canvas.getCanvas().setSize(this.maps.getWidth(), this.maps.getHeight());
+		int size = this.maps.getTailleCase();
+		Position pac = state.getPacmanPosition();
+		if(this.pacman == null) {
+			this.pacman = new Pacman(size, pac.y * size, pac.x * size);
+		}
+		else {
+			this.pacman.setLocation(pac.y * size, pac.x * size);
+		}
+		this.pickEatenGums(state);
+		this.ghost = new Ghost[state.getNbrOfGhost()];
+		for(int k = 0; k < this.ghost.length; k++) {
+			Position position = state.getPGhost(k);
+			this.ghost[k] = new Ghost(size, position.y * size, position.x * size, COLORS[k % COLORS.length], state.isVisible(position.x, position.y, pac.x, pac.y));
+		}
+		this.meilleurScore = Score.getScore();
+		this.score = score;
+		this.life = life;
+		this.from = new int[2 * (this.ghost.length + 1)];
+		this.to = new int[this.from.length];
+		this.walking = false;
+		this.eaten = null;
+		Canvas.getCanvas().resetMove();
+		this.maps.draw();
+		this.pacman.draw();
+		for(Ghost g: this.ghost) {
+			g.draw();
+		}
+		Canvas.getCanvas().redraw(score, life, this.meilleurScore);
+	}
+
+	private void pickEatenGums(BeliefState state) {
+		for(int[] position: this.maps.getLevel().getGamePositions()) {
+			if(!state.hasGum(position[0], position[1])) {
+				this.maps.pickGom(position[0], position[1]);
+			}
+		}
+	}
+
+	/**
+	 * start the slide of the figures from where they are drawn to the squares of a new state of the same level, see
+	 * interpolate; the figures whose new square is not a neighbour jump at once
+	 * @param state the true game
+	 * @param move the last move of Pacman
+	 * @param score the score to display
+	 * @param life the lives to display
+	 * @param resync true if moves were skipped since the previous state: every eaten gum is removed at once
+	 */
+	void slideTo(BeliefState state, String move, int score, int life, boolean resync) {
+		if(this.eaten != null) {
+			this.maps.pickGom(this.eaten.x, this.eaten.y);
+			this.eaten = null;
+		}
+		int size = this.maps.getTailleCase();
+		Position pac = state.getPacmanPosition();
+		this.setSlide(0, this.pacman, pac.y * size, pac.x * size, size);
+		this.walking = this.from[0] != this.to[0] || this.from[1] != this.to[1];
+		if(this.walking) {
+			this.pacman.setDirection(move);
+		}
+		for(int k = 0; k < this.ghost.length; k++) {
+			Position position = state.getPGhost(k);
+			this.setSlide(k + 1, this.ghost[k], position.y * size, position.x * size, size);
+			this.ghost[k].setPeur(state.getCompteurPeur(k) > 0);
+			this.ghost[k].setVisible(state.isVisible(position.x, position.y, pac.x, pac.y));
+		}
+		if(resync) {
+			this.pickEatenGums(state);
+		}
+		else {
+			this.eaten = pac;
+		}
+		this.score = score;
+		this.life = life;
+	}
+
+	private void setSlide(int index, Entite entity, int x, int y, int size) {
+		this.jumpIfFar(entity, x, y, size);
+		this.from[2 * index] = entity.getX();
+		this.from[2 * index + 1] = entity.getY();
+		this.to[2 * index] = x;
+		this.to[2 * index + 1] = y;
+	}
+
+	/**
+	 * draw the figures at a point of their slide and redraw the canvas (without pause)
+	 * @param fraction 0 at the squares where the slide started, 1 at the squares of the state
+	 */
+	void interpolate(double fraction) {
+		fraction = Math.max(0, Math.min(1, fraction));
+		for(int index = 0; index <= this.ghost.length; index++) {
+			Entite entity = index == 0 ? this.pacman : this.ghost[index - 1];
+			entity.setLocation(this.from[2 * index] + (int)Math.round((this.to[2 * index] - this.from[2 * index]) * fraction),
+					this.from[2 * index + 1] + (int)Math.round((this.to[2 * index + 1] - this.from[2 * index + 1]) * fraction));
+		}
+		if(this.walking && fraction < 1) {
+			this.pacman.animateMouth();
+		}
+		if(fraction == 1 && this.eaten != null) {
+			this.maps.pickGom(this.eaten.x, this.eaten.y);
+			this.eaten = null;
+		}
+		Canvas.getCanvas().redraw(this.score, this.life, this.meilleurScore);
+	}
+
+	/**
+	 * animate the move from the previous squares to the current squares of the engine
+	 */
+	@Override
+	public void moved(GameEngine engine, String move) {
+		BeliefState state = engine.getState();
+		int size = this.maps.getTailleCase();
+		Position pac = state.getPacmanPosition();
+		int pacX = pac.y * size, pacY = pac.x * size;
+		boolean walking = this.jumpIfFar(this.pacman, pacX, pacY, size) && (this.pacman.getX() != pacX || this.pacman.getY() != pacY);
+		if(walking) {
+			this.pacman.setDirection(move);
+		}
+		int[] ghostX = new int[this.ghost.length], ghostY = new int[this.ghost.length];
+		for(int k = 0; k < this.ghost.length; k++) {
+			Position position = state.getPGhost(k);
+			ghostX[k] = position.y * size;
+			ghostY[k] = position.x * size;
+			this.jumpIfFar(this.ghost[k], ghostX[k], ghostY[k], size);
+			this.ghost[k].setPeur(state.getCompteurPeur(k) > 0);
+			this.ghost[k].setVisible(state.isVisible(position.x, position.y, pac.x, pac.y));
+		}
+		if(this.fastForward > 0) {
+			this.pacman.setLocation(pacX, pacY);
+			for(int k = 0; k < this.ghost.length; k++) {
+				this.ghost[k].setLocation(ghostX[k], ghostY[k]);
+			}
+			this.maps.pickGom(pac.x, pac.y);
+			if(++this.moves % this.fastForward == 0) {
+				Canvas.getCanvas().redraw(engine.getScore(), engine.getLife(), this.meilleurScore);
+			}
+			return;
+		}
+		// enough frames to cross a square whatever its size, moveToward stops on the square
+		int frames = Math.max(1, (size + Pacman.SPEED_PACMAN - 1) / Pacman.SPEED_PACMAN);
+		for(int frame = 0; frame < frames; frame++) {
+			this.pacman.moveToward(pacX, pacY);
+			if(walking) {
+				this.pacman.animateMouth();
+			}
+			for(int k = 0; k < this.ghost.length; k++) {
+				this.ghost[k].moveToward(ghostX[k], ghostY[k]);
+			}
+			if(frame == frames - 1) {
+				this.maps.pickGom(pac.x, pac.y);
+			}
+			Canvas.getCanvas().redraw(engine.getScore(), engine.getLife(), this.meilleurScore);
+		}
+	}
+
+	/**
+	 * show the end of the game, which fast-forward may not have drawn
+	 */
+	@Override
+	public void gameOver(GameEngine engine) {
+		Canvas.getCanvas().redraw(engine.getScore(), engine.getLife(), this.meilleurScore);
+	}
+
+	/**
+	 * move an entity at once when its new square is not a neighbour of its current position
+	 * @return true if the entity walks to its new square
+	 */
+	private boolean jumpIfFar(Entite entity, int x, int y, int size) {
+		if(Math.abs(entity.getX() - x) + Math.abs(entity.getY() - y) > size) {
+			entity.setLocation(x, y);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * check whether the player chose the AI in the menu
+	 * @return true if the AI plays
+	 */
+	public boolean isAIdriven() {
+		return Canvas.getCanvas().isAIdriven();
+	}
+
+	/**
+	 * return the move asked with the keyboard
+	 * @param previousMove the previous move of Pacman, kept when no key is pressed
+	 * @return the move (PacManLauncher.UP, DOWN, LEFT or RIGHT)
+	 */
+	public String getKeyboardMove(String previousMove) {
+		Canvas c = Canvas.getCanvas();
+		if (c.isUpPressed()) {
+			return PacManLauncher.UP;
+		} else if (c.isDownPressed()) {
+			return PacManLauncher.DOWN;
+		} else if (c.isLeftPressed()) {
+			return PacManLauncher.LEFT;
+		} else if (c.isRightPressed()) {
+			return PacManLauncher.RIGHT;
+		}
+		return previousMove;
+	}
+}
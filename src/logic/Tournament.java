@@ -0,0 +1,249 @@
+package logic;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+import data.Level;
+
+/**
+ * class used to compare strategies of Pacman on paired games: for every seed of the range, each strategy plays the
+ * same cycle of maps with ghosts seeded the same way, so the difference of their scores on a seed only comes from
+ * their decisions. The pairs are played in parallel, one seed per task, each strategy after the other on the thread
+ * of the task. Without deadline (the default) every decision searches on the thread of its game, so the games are the
+ * same from one run to the next. With --deadline, each game searches on its own AIContext.WORKERS_PER_GAME workers,
+ * so at most cores / WORKERS_PER_GAME games are played at a time; the scores and the decision times then still depend
+ * on the load of the machine, which the report recalls. The report gives for every strategy its mean score with its 95%
+ * confidence interval and the distribution of the time of its decisions, then for every other strategy the mean of
+ * its paired score differences with the first strategy, the confidence interval of that mean, its wins and losses
+ * and how much more time it spends per decision.
+ * The strategies are registered by name: "ai" (AI with the weights file), "ai-default" (AI with the weights of the
+ * code), and NAME=FILE with --weights for AI with a weights file. Each AI plays with its own AIContext, set with
+ * the --deadline and --endgame of the tournament; a strategy registered by code may set its contexts differently.
+ *
+ * Usage: java logic.Tournament [--strategies ai,ai-default] [--weights NAME=FILE] [--seeds FIRST-LAST | --seed N --games N]
+ *                              [--maps 1,2,3] [--ticks N] [--threads N] [--deadline ms] [--endgame N] [--output file]
+ */
+public class Tournament {
+	private LinkedHashMap<String, LongFunction<Strategy>> strategies = new LinkedHashMap<>();
+	private String[] names = {"ai", "ai-default"};
+	private long firstSeed = 1;
+	private long lastSeed = 30;
+	private int[] maps = {1, 2, 3};
+	private int maxTicks = 5000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long deadline = 0;
+	private int endgameThreshold = AIContext.DEFAULT_ENDGAME_THRESHOLD;
+	private String outputFile;
+
+	/**
+	 * create a tournament with the strategies "ai" and "ai-default"
+	 */
+	public Tournament() {
+		this.register("ai", seed -> this.aiStrategy(AIWeights.getLoaded(), seed));
+		this.register("ai-default", seed -> this.aiStrategy(new AIWeights(), seed));
+	}
+
+	/**
+	 * register a strategy, replacing the strategy of the same name
+	 * @param name the name of the strategy in --strategies
+	 * @param factory creates the strategy of a game from the seed of the game
+	 */
+	public synchronized void register(String name, LongFunction<Strategy> factory) {
+		this.strategies.put(name, factory);
+	}
+
+	private synchronized LongFunction<Strategy> getStrategy(String name) {
+		LongFunction<Strategy> factory = this.strategies.get(name);
+		if(factory == null)
+			throw new IllegalArgumentException("Unknown strategy " + name + ", registered: " + this.strategies.keySet());
+		return factory;
+	}
+
+	/**
+	 * create the strategy of the AI for one game, with the deadline and the endgame threshold of the tournament
+	 * @param weights the weights of the heuristic
+	 * @param seed the seed of the game
+	 * @return the strategy
+	 */
+	private Strategy aiStrategy(AIWeights weights, long seed) {
+		AIContext context = new AIContext(weights, 0, seed);
+		context.setDeadline(this.deadline);
+		context.setEndgameThreshold(this.endgameThreshold);
+		context.setFeedbackOutput(null);
+		return Strategy.of(context);
+	}
+
+	public static void main(String[] args) throws Exception {
+		Tournament tournament = new Tournament();
+		Options options = new Options(args, "--strategies", "--weights", "--seeds", "--seed", "--games", "--maps", "--ticks",
+				"--threads", "--deadline", "--endgame", "--output");
+		tournament.names = options.getString("--strategies", String.join(",", tournament.names)).split(",");
+		if(options.has("--weights")) {
+			String[] weights = options.getString("--weights", null).split("=", 2);
+			AIWeights loaded = AIWeights.load(weights[1]);
+			tournament.register(weights[0], seed -> tournament.aiStrategy(loaded, seed));
+		}
+		tournament.firstSeed = options.getSeed(tournament.firstSeed);
+		tournament.lastSeed = tournament.firstSeed + options.getGames((int)(tournament.lastSeed - tournament.firstSeed + 1)) - 1;
+		tournament.maps = options.getMaps(tournament.maps);
+		tournament.maxTicks = options.getInt("--ticks", tournament.maxTicks);
+		tournament.threads = options.getThreads();
+		tournament.deadline = options.getLong("--deadline", tournament.deadline);
+		tournament.endgameThreshold = options.getInt("--endgame", tournament.endgameThreshold);
+		tournament.outputFile = options.getString("--output", null);
+		for(String name : tournament.names)
+			tournament.getStrategy(name);
+		long elapsedTime = System.currentTimeMillis();
+		BatchRunner.Report[][] games = tournament.run();
+		elapsedTime = System.currentTimeMillis() - elapsedTime;
+		PrintStream out = tournament.outputFile == null ? System.out : new PrintStream(tournament.outputFile);
+		try {
+			tournament.writeReport(games, out);
+		}
+		finally {
+			if(out != System.out)
+				out.close();
+		}
+		System.err.println(games.length + " pairs in " + elapsedTime / 1000.0 + " s");
+	}
+
+	/**
+	 * play every strategy on every seed of the range
+	 * @return the games, by seed then in the order of the strategies
+	 */
+	public BatchRunner.Report[][] run() throws InterruptedException, ExecutionException {
+		Level[] levels = new Level[this.maps.length];
+		for(int m = 0; m < this.maps.length; m++) {
+			levels[m] = new Level(this.maps[m]);
+		}
+		ArrayList<Callable<BatchRunner.Report[]>> pairs = new ArrayList<>();
+		for(long seed = this.firstSeed; seed <= this.lastSeed; seed++) {
+			long pairSeed = seed;
+			pairs.add(() -> {
+				BatchRunner.Report[] pair = new BatchRunner.Report[this.names.length];
+				for(int s = 0; s < pair.length; s++) {
+					pair[s] = BatchRunner.play(new GameEngine(levels, pairSeed), this.getStrategy(this.names[s]).apply(pairSeed), pairSeed, this.maxTicks);
+				}
+				return pair;
+			});
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(BatchRunner.concurrentGames(this.threads, this.deadline));
+		BatchRunner.Report[][] games = new BatchRunner.Report[pairs.size()][];
+		try {
+			int index = 0;
+			for(Future<BatchRunner.Report[]> future : pool.invokeAll(pairs)) {
+				games[index++] = future.get();
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return games;
+	}
+
+	/**
+	 * return the half width of the 95% confidence interval of a mean (Student)
+	 * @param deviation the standard deviation of the sample
+	 * @param size the size of the sample
+	 * @return the half width, 0 if the sample has less than two values
+	 */
+	static double confidence95(double deviation, int size) {
+		if(size < 2)
+			return 0;
+		// quantile 0.975 of the Student distribution, Cornish-Fisher expansion around the normal quantile
+		double z = 1.959964, df = size - 1;
+		double t = z + (z * z * z + z) / (4 * df) + (5 * Math.pow(z, 5) + 16 * z * z * z + 3 * z) / (96 * df * df);
+		return t * deviation / Math.sqrt(size);
+	}
+
+	private static double mean(double[] values) {
+		double sum = 0;
+		for(double value : values)
+			sum += value;
+		return values.length == 0 ? 0 : sum / values.length;
+	}
+
+	private static double deviation(double[] values) {
+		if(values.length < 2)
+			return 0;
+		double mean = Tournament.mean(values), sum = 0;
+		for(double value : values)
+			sum += (value - mean) * (value - mean);
+		return Math.sqrt(sum / (values.length - 1));
+	}
+
+	private static String format(String pattern, Object... values) {
+		return String.format(Locale.ROOT, pattern, values);
+	}
+
+	/**
+	 * write the statistics of every strategy, then the paired comparison of every strategy with the first one
+	 */
+	void writeReport(BatchRunner.Report[][] games, PrintStream out) {
+		int pairs = games.length;
+		out.println(format("%d paired games per strategy, seeds %d-%d, maps %s, at most %d moves, deadline %d ms",
+				pairs, this.firstSeed, this.lastSeed, Arrays.toString(this.maps), this.maxTicks, this.deadline));
+		if(this.deadline > 0)
+			out.println(format("%d games at a time with %d search workers each on %d cores: the search depth reached before the "
+					+ "deadline depends on the load, the games are not reproducible", BatchRunner.concurrentGames(this.threads, this.deadline), AIContext.WORKERS_PER_GAME,
+					Runtime.getRuntime().availableProcessors()));
+		out.println();
+		out.println(format("%-12s %10s %9s %7s %8s %9s %9s %9s %9s %9s", "strategy", "score", "+/-95%", "levels", "survived",
+				"mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+		double[] meanLatency = new double[this.names.length];
+		for(int s = 0; s < this.names.length; s++) {
+			double[] scores = new double[pairs];
+			double levels = 0;
+			int survived = 0, decisions = 0;
+			for(int p = 0; p < pairs; p++) {
+				scores[p] = games[p][s].getScore();
+				levels += games[p][s].getLevelsCleared();
+				survived += games[p][s].getLife() > 0 ? 1 : 0;
+				decisions += games[p][s].getLatencies().length;
+			}
+			long[] latencies = new long[decisions];
+			int index = 0;
+			double total = 0;
+			for(int p = 0; p < pairs; p++) {
+				for(long latency : games[p][s].getLatencies()) {
+					latencies[index++] = latency;
+					total += latency;
+				}
+			}
+			Arrays.sort(latencies);
+			meanLatency[s] = decisions == 0 ? 0 : total / decisions / 1e6;
+			out.println(format("%-12s %10.1f %9.1f %7.2f %7d%% %9.3f %9.3f %9.3f %9.3f %9.3f", this.names[s],
+					Tournament.mean(scores), Tournament.confidence95(Tournament.deviation(scores), pairs), levels / pairs,
+					100 * survived / pairs, meanLatency[s], BatchRunner.percentile(latencies, 50) / 1e6,
+					BatchRunner.percentile(latencies, 90) / 1e6, BatchRunner.percentile(latencies, 99) / 1e6,
+					BatchRunner.percentile(latencies, 100) / 1e6));
+		}
+		if(this.names.length < 2)
+			return;
+		out.println();
+		out.println(format("%-12s %12s %14s %5s %5s %5s %12s", "vs " + this.names[0], "score delta", "95% interval",
+				"wins", "ties", "loss", "time ratio"));
+		for(int s = 1; s < this.names.length; s++) {
+			double[] deltas = new double[pairs];
+			int wins = 0, ties = 0;
+			for(int p = 0; p < pairs; p++) {
+				deltas[p] = games[p][s].getScore() - games[p][0].getScore();
+				wins += deltas[p] > 0 ? 1 : 0;
+				ties += deltas[p] == 0 ? 1 : 0;
+			}
+			double mean = Tournament.mean(deltas), half = Tournament.confidence95(Tournament.deviation(deltas), pairs);
+			out.println(format("%-12s %+12.1f %14s %5d %5d %5d %11.2fx", this.names[s], mean,
+					format("[%+.0f, %+.0f]", mean - half, mean + half), wins, ties, pairs - wins - ties,
+					meanLatency[0] == 0 ? Double.NaN : meanLatency[s] / meanLatency[0]));
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package logic;
+
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * class used to tune the weights of the heuristic of the AI by self-play (SPSA: simultaneous perturbation
+ * stochastic approximation). Each iteration perturbs every weight at once, plays the same seeded games with
+ * the two opposite perturbations on all the cores, and moves the weights toward the better side.
+ * The weights are tuned on a logarithmic scale (weight = default * exp(x)) so that they keep their sign and
+ * every weight moves by the same ratio whatever its magnitude.
+ * The objective is the mean score in thousands of points plus the survival rate. The perturbed games of an
+ * iteration use a new block of seeds and only estimate the gradient: after every step the weights themselves
+ * are played on a fixed validation block of seeds, the same for the whole run, and they are written to the
+ * weights file loaded by the AI only if they beat the best weights validated so far (the default weights to
+ * begin with). The state of the tuner is saved after every iteration so that a stopped run resumes where it was.
+ *
+ * Usage: java logic.Tuner [--iterations N] [--games N] [--validation N] [--maps 1,2,3] [--ticks N] [--seed N]
+ *                         [--threads N] [--checkpoint file] [--output file]
+ */
+public class Tuner {
+	// SPSA gains: step a / (k + 1 + A)^0.602, perturbation c / (k + 1)^0.101
+	private static final double A_GAIN = 0.2;
+	private static final double C_GAIN = 0.2;
+	private static final double STABILITY = 10;
+	// the log-scale of a weight never moves by more than this in one iteration
+	private static final double MAX_STEP = 0.5;
+	private static final double SCORE_SCALE = 1000.0;
+
+	private int iterations = 100;
+	private int games = 8;
+	private int validationGames = 16;
+	private int[] maps = {1, 2, 3};
+	private int maxTicks = 3000;
+	private long seed = 1;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private String checkpointFile = "./doc/ai.tuner";
+	private String outputFile = AIWeights.WEIGHTS_FILE;
+
+	private int iteration;
+	private double[] x;
+	private double[] bestX;
+	private double bestObjective = Double.NEGATIVE_INFINITY;
+
+	public static void main(String[] args) throws Exception {
+		Tuner tuner = new Tuner();
+		Options options = new Options(args, "--iterations", "--games", "--validation", "--maps", "--ticks", "--seed", "--threads",
+				"--checkpoint", "--output");
+		tuner.iterations = options.getInt("--iterations", tuner.iterations);
+		tuner.games = options.getGames(tuner.games);
+		tuner.validationGames = options.getInt("--validation", tuner.validationGames);
+		tuner.maps = options.getMaps(tuner.maps);
+		tuner.maxTicks = options.getInt("--ticks", tuner.maxTicks);
+		tuner.seed = options.getSeed(tuner.seed);
+		tuner.threads = options.getThreads();
+		tuner.checkpointFile = options.getString("--checkpoint", tuner.checkpointFile);
+		tuner.outputFile = options.getString("--output", tuner.outputFile);
+		tuner.run();
+	}
+
+	/**
+	 * run the iterations left, starting from the checkpoint if there is one
+	 */
+	public void run() throws IOException, InterruptedException, ExecutionException {
+		this.x = new double[AIWeights.size()];
+		this.bestX = this.x.clone();
+		this.iteration = 0;
+		if(Files.exists(Paths.get(this.checkpointFile))) {
+			this.loadCheckpoint();
+			System.out.println("Resuming at iteration " + this.iteration + " (best objective " + this.bestObjective + ")");
+		}
+		SelfPlay[] levels = new SelfPlay[this.maps.length];
+		for(int m = 0; m < this.maps.length; m++) {
+			levels[m] = new SelfPlay(this.maps[m]);
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+		try {
+			if(this.bestObjective == Double.NEGATIVE_INFINITY) {
+				this.bestObjective = this.validate(levels, this.bestX, pool);
+				System.out.println(String.format("Starting weights | validation %.3f", this.bestObjective));
+			}
+			for(; this.iteration < this.iterations; this.iteration++) {
+				this.iterate(levels, pool);
+				double objective = this.validate(levels, this.x, pool);
+				boolean better = objective > this.bestObjective;
+				if(better) {
+					this.bestObjective = objective;
+					this.bestX = this.x.clone();
+				}
+				System.out.println(String.format("Iteration %d | validation %.3f | best %.3f", this.iteration + 1, objective, this.bestObjective));
+				this.saveCheckpoint();
+				if(better)
+					this.toWeights(this.bestX).save(this.outputFile, "tuned by Tuner, iteration " + (this.iteration + 1) + ", validation objective " + this.bestObjective);
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * one SPSA iteration: on every map, two batches of games with the same seeds, then a step along the estimated gradient
+	 */
+	private void iterate(SelfPlay[] levels, ExecutorService pool) throws InterruptedException, ExecutionException {
+		int k = this.iteration;
+		double ck = C_GAIN / Math.pow(k + 1, 0.101);
+		double ak = A_GAIN / Math.pow(k + 1 + STABILITY, 0.602);
+		Random random = new Random(this.seed * 31 + k);
+		int[] delta = new int[this.x.length];
+		double[] plus = new double[this.x.length], minus = new double[this.x.length];
+		for(int i = 0; i < this.x.length; i++) {
+			delta[i] = random.nextBoolean() ? 1 : -1;
+			plus[i] = this.x[i] + ck * delta[i];
+			minus[i] = this.x[i] - ck * delta[i];
+		}
+		long firstSeed = this.seed * 1000003L + (long)k * this.games;
+		double objectivePlus = this.evaluate(levels, this.toWeights(plus), firstSeed, this.games, pool);
+		double objectiveMinus = this.evaluate(levels, this.toWeights(minus), firstSeed, this.games, pool);
+		for(int i = 0; i < this.x.length; i++) {
+			double step = ak * (objectivePlus - objectiveMinus) / (2 * ck * delta[i]);
+			this.x[i] += Math.max(-MAX_STEP, Math.min(MAX_STEP, step));
+		}
+		System.out.println(String.format("Iteration %d | f+ %.3f | f- %.3f", k + 1, objectivePlus, objectiveMinus));
+	}
+
+	/**
+	 * play weights on the validation games: the seeds just below the first block of the iterations, the same for
+	 * every iteration, so that the objectives of two weights are measured on the same games
+	 * @return the objective of the weights
+	 */
+	private double validate(SelfPlay[] levels, double[] logScale, ExecutorService pool) throws InterruptedException, ExecutionException {
+		return this.evaluate(levels, this.toWeights(logScale), this.seed * 1000003L - this.validationGames, this.validationGames, pool);
+	}
+
+	/**
+	 * play the games of a batch, on every map, on all the cores
+	 * @return the mean score in thousands of points plus the survival rate
+	 */
+	private double evaluate(SelfPlay[] levels, AIWeights weights, long firstSeed, int games, ExecutorService pool) throws InterruptedException, ExecutionException {
+		ArrayList<Callable<SelfPlay.Outcome>> batch = new ArrayList<>();
+		for(SelfPlay level : levels) {
+			for(int g = 0; g < games; g++) {
+				long gameSeed = firstSeed + g;
+				batch.add(() -> level.play(weights, gameSeed, this.maxTicks));
+			}
+		}
+		double score = 0, survived = 0;
+		for(Future<SelfPlay.Outcome> future : pool.invokeAll(batch)) {
+			SelfPlay.Outcome outcome = future.get();
+			score += outcome.getScore();
+			if(outcome.hasSurvived())
+				survived++;
+		}
+		return (score / SCORE_SCALE + survived) / batch.size();
+	}
+
+	private AIWeights toWeights(double[] logScale) {
+		double[] values = new AIWeights().getValues();
+		for(int i = 0; i < values.length; i++)
+			values[i] *= Math.exp(logScale[i]);
+		return new AIWeights(values);
+	}
+
+	private void saveCheckpoint() throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("iteration", Integer.toString(this.iteration + 1));
+		properties.setProperty("seed", Long.toString(this.seed));
+		properties.setProperty("validationGames", Integer.toString(this.validationGames));
+		properties.setProperty("bestObjective", Double.toString(this.bestObjective));
+		properties.setProperty("x", Tuner.join(this.x));
+		properties.setProperty("bestX", Tuner.join(this.bestX));
+		String temporary = this.checkpointFile + ".tmp";
+		try(Writer out = new FileWriter(temporary)) {
+			properties.store(out, "SPSA tuner state, in the log-scale of the default weights");
+		}
+		Files.move(Paths.get(temporary), Paths.get(this.checkpointFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void loadCheckpoint() throws IOException {
+		Properties properties = new Properties();
+		try(Reader in = new FileReader(this.checkpointFile)) {
+			properties.load(in);
+		}
+		this.iteration = Integer.parseInt(properties.getProperty("iteration"));
+		this.seed = Long.parseLong(properties.getProperty("seed"));
+		// the best objective is only comparable when measured on the same validation games
+		if(Integer.toString(this.validationGames).equals(properties.getProperty("validationGames")))
+			this.bestObjective = Double.parseDouble(properties.getProperty("bestObjective"));
+		this.x = Tuner.split(properties.getProperty("x"));
+		this.bestX = Tuner.split(properties.getProperty("bestX"));
+	}
+
+	private static String join(double[] values) {
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < values.length; i++)
+			builder.append(i == 0 ? "" : ",").append(values[i]);
+		return builder.toString();
+	}
+
+	private static double[] split(String values) {
+		String[] parts = values.split(",");
+		double[] result = new double[AIWeights.size()];
+		for(int i = 0; i < parts.length && i < result.length; i++)
+			result[i] = Double.parseDouble(parts[i]);
+		return result;
+	}
+}
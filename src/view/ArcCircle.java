@@ -81,7 +81,7 @@ public class ArcCircle extends Figure {
     {
         Canvas canvas = Canvas.getCanvas();
         if(this.isVisible())
-        	canvas.draw(this, getColor(), new Arc2D.Double(getX(),getY(),getWidth(),getHeight(),this.start,this.extent,2));
+        	canvas.draw(this, getColor(), new Arc2D.Double(getX(),getY(),getWidth(),getHeight(),this.start,this.extent,2), getLayer());
     }
 
 	 	/**
@@ -2,7 +2,7 @@ package view;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.List;
+import java.awt.image.BufferedImage;
 import java.util.*;
 
 /**
@@ -18,6 +18,15 @@ import java.util.*;
 public class Canvas
 {
 	public static final int WIDTH = 500, HEIGHT = 500;
+	// the layers of the shapes, drawn in this order over the background (see drawBackground)
+	// and under the scores
+	public static final int LAYER_GUMS = 0, LAYER_ACTORS = 1, LAYER_HUD = 2;
+	// side in pixels of the squares of the grid indexing the shapes by position
+	private static final int BUCKET = 32;
+	// the area of the score, the lives and the best score
+	private static final Rectangle HUD = new Rectangle(0, 0, WIDTH, 48);
+	// above this number of damaged areas, the whole canvas is redrawn
+	private static final int MAX_DIRTY = 64;
 
 	// Note: The implementation of this class (specifically the handling of
 	// shape identity and colors) is slightly more complex than necessary. This
@@ -49,10 +58,25 @@ public class Canvas
 	private Graphics2D graphic;
 	private Color backgroundColor;
 	private Image canvasImage;
-	private List<Object> objects;
-	private HashMap<Object, ShapeDescription> shapes;
+	// the figures that never move (walls and corridors), drawn once per level
+	private Image backgroundImage;
+	private Graphics2D backgroundGraphic;
+	// the shape of every reference object
+	private IdentityHashMap<Object, ShapeDescription> shapes;
+	// the shapes of every layer in drawing order: a shape drawn again goes to the end of its layer
+	private Layer[] layers;
+	// for every square of BUCKET pixels, the shapes whose bounds intersect it
+	private ArrayList<HashSet<ShapeDescription>> buckets;
+	private int bucketColumns, bucketRows;
+	// the areas changed since the last redraw, or the whole canvas if fullRedraw
+	private ArrayList<Rectangle> dirty;
+	private boolean fullRedraw;
+	private long nextOrder;
+	private int pass;
+	private String[] hudText;
 	private boolean upPressed, downPressed, leftPressed, rightPressed;
 	private boolean isAIdriven;
+	private int frameDelay = 5;
 
 	/**
 	 * Create a Canvas.
@@ -83,8 +107,14 @@ public class Canvas
 		canvas.setPreferredSize(new Dimension(width, height));
 		backgroundColor = bgColor;
 		frame.pack();
-		objects = new ArrayList<Object>();
-		shapes = new HashMap<Object, ShapeDescription>();
+		shapes = new IdentityHashMap<Object, ShapeDescription>();
+		layers = new Layer[LAYER_HUD + 1];
+		for(int i = 0; i < layers.length; i++) {
+			layers[i] = new Layer();
+		}
+		createBuckets(width, height);
+		dirty = new ArrayList<Rectangle>();
+		fullRedraw = true;
 
 		canvas.addKeyListener(new KeyboardListener());
 		canvas.setFocusable(true);
@@ -172,17 +202,84 @@ public class Canvas
 			// first time: instantiate the offscreen image and fill it with
 			// the background color
 			Dimension size = canvas.getSize();
-			canvasImage = canvas.createImage(size.width, size.height);
-			graphic = (Graphics2D)canvasImage.getGraphics();
-			graphic.setColor(backgroundColor);
-			graphic.fillRect(0, 0, size.width, size.height);
-			graphic.setColor(Color.black);
+			createImages(size.width, size.height);
 		}
 		frame.setVisible(visible);
 	}
 
 	/**
-	 * Draw a given shape onto the canvas.
+	 * Resize the canvas so that a drawing of the given size fits in it, the canvas
+	 * staying at least WIDTH x HEIGHT pixels. The window is resized and every shape
+	 * and the background are erased, as by clear(). (Does not repaint.)
+	 * @param  width   the width of the drawing, in pixels
+	 * @param  height  the height of the drawing, in pixels
+	 */
+	public void setSize(int width, int height)
+	{
+		width = Math.max(WIDTH, width);
+		height = Math.max(HEIGHT, height);
+		if(width != getWidth() || height != getHeight()) {
+			canvas.setPreferredSize(new Dimension(width, height));
+			frame.pack();
+			graphic.dispose();
+			backgroundGraphic.dispose();
+			createImages(width, height);
+			createBuckets(width, height);
+		}
+		clear();
+	}
+
+	/**
+	 * Give the width of the canvas
+	 * @return the width of the canvas in pixels
+	 */
+	public int getWidth()
+	{
+		return canvasImage.getWidth(null);
+	}
+
+	/**
+	 * Give the height of the canvas
+	 * @return the height of the canvas in pixels
+	 */
+	public int getHeight()
+	{
+		return canvasImage.getHeight(null);
+	}
+
+	/**
+	 * Instantiate the offscreen image and the background, filled with the background color.
+	 */
+	private void createImages(int width, int height)
+	{
+		canvasImage = canvas.createImage(width, height);
+		graphic = (Graphics2D)canvasImage.getGraphics();
+		graphic.setColor(backgroundColor);
+		graphic.fillRect(0, 0, width, height);
+		graphic.setColor(Color.black);
+		GraphicsConfiguration configuration = canvas.getGraphicsConfiguration();
+		backgroundImage = configuration != null ? configuration.createCompatibleImage(width, height)
+				: new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		backgroundGraphic = (Graphics2D)backgroundImage.getGraphics();
+		backgroundGraphic.setColor(backgroundColor);
+		backgroundGraphic.fillRect(0, 0, width, height);
+	}
+
+	/**
+	 * Instantiate the empty grid of squares indexing the shapes, covering the canvas.
+	 */
+	private void createBuckets(int width, int height)
+	{
+		bucketColumns = (width + BUCKET - 1) / BUCKET;
+		bucketRows = (height + BUCKET - 1) / BUCKET;
+		buckets = new ArrayList<HashSet<ShapeDescription>>();
+		for(int i = 0; i < bucketColumns * bucketRows; i++) {
+			buckets.add(new HashSet<ShapeDescription>());
+		}
+	}
+
+	/**
+	 * Draw a given shape onto the canvas, on the layer of the actors.
 	 * @param  referenceObject  an object to define identity for this shape
 	 * @param  color            the color of the shape
 	 * @param  shape            the shape object to be drawn on the canvas
@@ -192,9 +289,24 @@ public class Canvas
 	// in this project clean and simple for educational purposes.
 	public void draw(Object referenceObject, String color, Shape shape)
 	{
-		objects.remove(referenceObject);   // just in case it was already there
-		objects.add(referenceObject);      // add at the end
-		shapes.put(referenceObject, new ShapeDescription(shape, color));
+		draw(referenceObject, color, shape, LAYER_ACTORS);
+	}
+
+	/**
+	 * Draw a given shape onto the canvas.
+	 * @param  referenceObject  an object to define identity for this shape
+	 * @param  color            the color of the shape
+	 * @param  shape            the shape object to be drawn on the canvas
+	 * @param  layer            LAYER_GUMS, LAYER_ACTORS or LAYER_HUD
+	 */
+	public void draw(Object referenceObject, String color, Shape shape, int layer)
+	{
+		erase(referenceObject);   // just in case it was already there
+		ShapeDescription description = new ShapeDescription(shape, color, layer, nextOrder++);
+		shapes.put(referenceObject, description);
+		layers[layer].add(description);      // add at the end
+		index(description, true);
+		damage(description.bounds);
 		//         redraw();
 	}
 
@@ -204,55 +316,136 @@ public class Canvas
 	 */
 	public void erase(Object referenceObject)
 	{
-		objects.remove(referenceObject);   // just in case it was already there
-		shapes.remove(referenceObject);
+		ShapeDescription description = shapes.remove(referenceObject);
+		if(description != null) {
+			layers[description.layer].remove(description);
+			index(description, false);
+			damage(description.bounds);
+		}
 		//         redraw();
 	}
 
+	/**
+	 * Draw a shape that never moves into the background, under all the other
+	 * shapes: it cannot be erased, except by clear.
+	 * @param  color            the color of the shape
+	 * @param  shape            the shape object to be drawn on the background
+	 */
+	public void drawBackground(String color, Shape shape)
+	{
+		backgroundGraphic.setColor(colorOf(color));
+		backgroundGraphic.fill(shape);
+		Rectangle bounds = shape.getBounds();
+		bounds.grow(1, 1);
+		damage(bounds);
+	}
+
+	/**
+	 * Erase every shape and the background, before drawing a new level. (Does not repaint.)
+	 */
+	public void clear()
+	{
+		backgroundGraphic.setColor(backgroundColor);
+		backgroundGraphic.fillRect(0, 0, backgroundImage.getWidth(null), backgroundImage.getHeight(null));
+		shapes.clear();
+		for(Layer layer : layers) {
+			layer.clear();
+		}
+		for(HashSet<ShapeDescription> bucket : buckets) {
+			bucket.clear();
+		}
+		fullRedraw = true;
+		dirty.clear();
+	}
+
+	/**
+	 * Add a shape to (or remove it from) the squares of the grid it intersects.
+	 */
+	private void index(ShapeDescription description, boolean add)
+	{
+		Rectangle bounds = description.bounds;
+		int firstColumn = Math.max(0, bounds.x / BUCKET), lastColumn = Math.min(bucketColumns - 1, (bounds.x + bounds.width) / BUCKET);
+		int firstRow = Math.max(0, bounds.y / BUCKET), lastRow = Math.min(bucketRows - 1, (bounds.y + bounds.height) / BUCKET);
+		for(int row = firstRow; row <= lastRow; row++) {
+			for(int column = firstColumn; column <= lastColumn; column++) {
+				if(add) {
+					buckets.get(row * bucketColumns + column).add(description);
+				}
+				else {
+					buckets.get(row * bucketColumns + column).remove(description);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mark an area to be drawn again at the next redraw.
+	 */
+	private void damage(Rectangle area)
+	{
+		if(fullRedraw || area.isEmpty()) {
+			return;
+		}
+		if(dirty.size() == MAX_DIRTY) {
+			fullRedraw = true;
+			dirty.clear();
+			return;
+		}
+		dirty.add(new Rectangle(area));
+	}
+
 	/**
 	 * Set the foreground color of the Canvas.
 	 * @param  newColor   the new color for the foreground of the Canvas
 	 */
 	public void setForegroundColor(String colorString)
+	{
+		graphic.setColor(colorOf(colorString));
+	}
+
+	/**
+	 * The color of a color name, black for an unknown name.
+	 */
+	private static Color colorOf(String colorString)
 	{
 		if(colorString.equals("red")) {
-			graphic.setColor(new Color(235, 25, 25));
+			return new Color(235, 25, 25);
 		}
 		else if(colorString.equals("black")) {
-			graphic.setColor(Color.black);
+			return Color.black;
 		}
 		else if(colorString.equals("blue")) {
-			graphic.setColor(new Color(0, 0, 204));
+			return new Color(0, 0, 204);
 		}
 		else if(colorString.equals("violet")) {
-			graphic.setColor(new Color(130, 0, 140));
+			return new Color(130, 0, 140);
 		}
 		else if(colorString.equals("yellow")) {
-			graphic.setColor(new Color(255, 230, 0));
+			return new Color(255, 230, 0);
 		}
 		else if(colorString.equals("green")) {
-			graphic.setColor(new Color(80, 160, 60));
+			return new Color(80, 160, 60);
 		}
 		else if(colorString.equals("pink")) {
-			graphic.setColor(new Color(255, 0, 127));
+			return new Color(255, 0, 127);
 		}
 		else if(colorString.equals("white")) {
-			graphic.setColor(Color.white);
+			return Color.white;
 		}
 		else if(colorString.equals("redG")) {
-			graphic.setColor(new Color(239, 7, 7));
+			return new Color(239, 7, 7);
 		}
 		else if(colorString.equals("blueG")) {
-			graphic.setColor(new Color(102, 254, 255));
+			return new Color(102, 254, 255);
 		}
 		else if(colorString.equals("orangeG")) {
-			graphic.setColor(new Color(250, 156, 0));
+			return new Color(250, 156, 0);
 		}
 		else if(colorString.equals("pinkG")) {
-			graphic.setColor(new Color(255, 152, 153));
+			return new Color(255, 152, 153);
 		}
 		else {
-			graphic.setColor(Color.black);
+			return Color.black;
 		}
 	}
 
@@ -275,31 +468,122 @@ public class Canvas
 	}
 
 	/**
-	 * Redraw all shapes currently on the Canvas.
+	 * Redraw the areas changed since the last redraw: the shapes drawn, moved or
+	 * erased and the scores when they change. Each area is copied from the
+	 * background, then only the shapes intersecting it are drawn again, and only
+	 * these areas are repainted.
 	 */
 	public void redraw(int score, int life, String meilleurScore)
 	{
-		erase();
-		for(Object shape : objects) {
-			shapes.get(shape).draw(graphic);
+		String[] text = {"Score : "+score, "Vie : "+life, "Meilleur score : "+meilleurScore};
+		if(!Arrays.equals(text, hudText)) {
+			hudText = text;
+			damage(HUD);
+		}
+		if(fullRedraw) {
+			erase();
+			for(Layer layer : layers) {
+				layer.draw(graphic);
+			}
+			drawHud();
+			canvas.repaint();
+			fullRedraw = false;
+		}
+		else {
+			for(Rectangle area : coalesce()) {
+				graphic.setClip(area);
+				graphic.drawImage(backgroundImage, area.x, area.y, area.x + area.width, area.y + area.height,
+						area.x, area.y, area.x + area.width, area.y + area.height, null);
+				for(ShapeDescription description : intersecting(area)) {
+					description.draw(graphic);
+				}
+				if(area.intersects(HUD)) {
+					drawHud();
+				}
+				canvas.repaint(area);
+			}
+			graphic.setClip(null);
+		}
+		dirty.clear();
+		if(frameDelay > 0) {
+			wait(frameDelay);
 		}
-		printString("Score : "+score, 10, 20);
-		printString("Vie : "+life, 10, 40);
-		printString("Meilleur score : "+meilleurScore, 240, 20);
-		canvas.repaint();
-		wait(5);
 	}
 
 	/**
-	 * Erase the whole canvas. (Does not repaint.)
+	 * Merge the damaged areas that overlap, so that no pixel is drawn twice.
+	 */
+	private ArrayList<Rectangle> coalesce()
+	{
+		ArrayList<Rectangle> areas = new ArrayList<Rectangle>();
+		for(Rectangle area : dirty) {
+			Rectangle merged = new Rectangle(area);
+			for(boolean grown = true; grown; ) {
+				grown = false;
+				for(Iterator<Rectangle> it = areas.iterator(); it.hasNext(); ) {
+					Rectangle other = it.next();
+					if(other.intersects(merged)) {
+						merged.add(other);
+						it.remove();
+						grown = true;
+					}
+				}
+			}
+			areas.add(merged);
+		}
+		return areas;
+	}
+
+	/**
+	 * The shapes whose bounds intersect an area, in drawing order (layer, then order in the layer).
+	 */
+	private ArrayList<ShapeDescription> intersecting(Rectangle area)
+	{
+		pass++;
+		ArrayList<ShapeDescription> found = new ArrayList<ShapeDescription>();
+		int firstColumn = Math.max(0, area.x / BUCKET), lastColumn = Math.min(bucketColumns - 1, (area.x + area.width) / BUCKET);
+		int firstRow = Math.max(0, area.y / BUCKET), lastRow = Math.min(bucketRows - 1, (area.y + area.height) / BUCKET);
+		for(int row = firstRow; row <= lastRow; row++) {
+			for(int column = firstColumn; column <= lastColumn; column++) {
+				for(ShapeDescription description : buckets.get(row * bucketColumns + column)) {
+					if(description.pass != pass && description.bounds.intersects(area)) {
+						description.pass = pass;
+						found.add(description);
+					}
+				}
+			}
+		}
+		found.sort((a, b) -> a.layer != b.layer ? a.layer - b.layer : Long.compare(a.order, b.order));
+		return found;
+	}
+
+	/**
+	 * Draw the scores. (Does not repaint.)
+	 */
+	private void drawHud()
+	{
+		graphic.setFont(new Font("Arial", Font.BOLD, 20));
+		graphic.setColor(Color.WHITE);
+		graphic.drawString(hudText[0], 10, 20);
+		graphic.drawString(hudText[1], 10, 40);
+		graphic.drawString(hudText[2], 240, 20);
+	}
+
+	/**
+	 * Set the pause after each redraw, which gives the speed of the animations.
+	 * @param  milliseconds  the pause, 0 to never sleep
+	 */
+	public void setFrameDelay(int milliseconds)
+	{
+		frameDelay = milliseconds;
+	}
+
+	/**
+	 * Erase the whole canvas, leaving only the background. (Does not repaint.)
 	 */
 	private void erase()
 	{
-		Color original = graphic.getColor();
-		graphic.setColor(backgroundColor);
-		Dimension size = canvas.getSize();
-		graphic.fill(new Rectangle(0, 0, size.width, size.height));
-		graphic.setColor(original);
+		graphic.drawImage(backgroundImage, 0, 0, null);
 	}
 
 	/************************************************************************
@@ -324,20 +608,100 @@ public class Canvas
 	{
 		private Shape shape;
 		private String colorString;
+		// the pixels covered by the shape
+		private Rectangle bounds;
+		private Color color;
+		private int layer;
+		// the position of the shape in the drawing order
+		private long order;
+		// the index of the shape in its layer
+		private int slot;
+		// the last search of intersecting shapes that found this shape
+		private int pass;
 
-		public ShapeDescription(Shape shape, String color)
+		public ShapeDescription(Shape shape, String color, int layer, long order)
 		{
 			this.shape = shape;
 			colorString = color;
+			this.color = colorOf(color);
+			bounds = shape.getBounds();
+			bounds.grow(1, 1);
+			this.layer = layer;
+			this.order = order;
 		}
 
 		public void draw(Graphics2D graphic)
 		{
-			setForegroundColor(colorString);
+			graphic.setColor(color);
 			graphic.fill(shape);
 		}
 	}
 
+	/************************************************************************
+	 * Inner class Layer - the shapes of one layer in drawing order, in an
+	 * array. A removed shape leaves an empty slot and new shapes are added at
+	 * the end; the array is compacted when half of it is empty, so adding and
+	 * removing cost O(1) on average and the shapes are drawn by a plain scan.
+	 */
+	private static class Layer
+	{
+		private ShapeDescription[] slots = new ShapeDescription[64];
+		private int size, count;
+
+		public void add(ShapeDescription description)
+		{
+			if(size == slots.length) {
+				if(count <= size / 2) {
+					compact();
+				}
+				else {
+					slots = Arrays.copyOf(slots, 2 * size);
+				}
+			}
+			description.slot = size;
+			slots[size++] = description;
+			count++;
+		}
+
+		public void remove(ShapeDescription description)
+		{
+			slots[description.slot] = null;
+			count--;
+			if(count == 0) {
+				size = 0;
+			}
+		}
+
+		public void clear()
+		{
+			Arrays.fill(slots, 0, size, null);
+			size = 0;
+			count = 0;
+		}
+
+		public void draw(Graphics2D graphic)
+		{
+			for(int i = 0; i < size; i++) {
+				if(slots[i] != null) {
+					slots[i].draw(graphic);
+				}
+			}
+		}
+
+		private void compact()
+		{
+			int kept = 0;
+			for(int i = 0; i < size; i++) {
+				if(slots[i] != null) {
+					slots[i].slot = kept;
+					slots[kept++] = slots[i];
+				}
+			}
+			Arrays.fill(slots, kept, size, null);
+			size = kept;
+		}
+	}
+
 	/************************************************************************
 	 * Inner class KeyboardListener - listens for the UP, DOWN, RIGHT, LEFT keys.
 	 */
@@ -17,6 +17,7 @@ public abstract class Figure
     private int y; // the figure y location in pixels
     private String color = "white"; // the figure color. Valid colors are "white", "black", "red", "yellow", "blue", "green".
     private boolean isVisible;
+    private int layer = Canvas.LAYER_ACTORS; // the canvas layer of the figure, see Canvas.LAYER_GUMS
     
     /**
      * Create a new figure.
@@ -63,7 +64,8 @@ public abstract class Figure
      */
     public boolean isInside()
     {
-        return x >= 0 && x+width < Canvas.WIDTH && y >= 0 && y+height < Canvas.HEIGHT;
+        Canvas canvas = Canvas.getCanvas();
+        return x >= 0 && x+width < canvas.getWidth() && y >= 0 && y+height < canvas.getHeight();
     }
 
     /**
@@ -111,6 +113,27 @@ public abstract class Figure
         return color;
     }
 
+    /**
+     * Give the canvas layer on which the figure is drawn
+     *
+     * @return Canvas.LAYER_GUMS, Canvas.LAYER_ACTORS or Canvas.LAYER_HUD
+     */
+    public int getLayer() {
+        return layer;
+    }
+
+    /**
+     * Change the canvas layer on which the figure is drawn: a figure is always drawn over the figures of the lower layers
+     *
+     * @param layer Canvas.LAYER_GUMS, Canvas.LAYER_ACTORS or Canvas.LAYER_HUD
+     *
+     * @pre layer >= Canvas.LAYER_GUMS && layer <= Canvas.LAYER_HUD
+     */
+    public void setLayer(int layer) {
+        assert layer >= Canvas.LAYER_GUMS && layer <= Canvas.LAYER_HUD : "Wrong layer";
+        this.layer = layer;
+    }
+
     /**
      * Move the figure in an autonomous way
      */
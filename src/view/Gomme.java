@@ -6,7 +6,6 @@ public class Gomme extends Figure {
   private boolean supra;
   private static final String COLOR_WALK = "black";
   private static final String COLOR_GOM = "white";
-  public static final int SCORE_GOMME = 10;
 
   /**
    * constructeur d'une case de jeu Gomme
@@ -18,7 +17,7 @@ public class Gomme extends Figure {
   public Gomme (int size, int x, int y) {
     super(size, size, x, y, "black");
     this.figures = new Figure[2];
-    this.figures[0] = new Square(size, x, y, Gomme.COLOR_WALK);
+    this.figures[0] = new Tile(size, x, y, Gomme.COLOR_WALK);
   }
 
   /**
@@ -43,13 +42,17 @@ public class Gomme extends Figure {
     int xg = x+(size/2)-(sg/2);
     int yg = y+(size/2)-(sg/2);
     this.figures[1] = new Circle(sg, xg, yg, Gomme.COLOR_GOM);
+    this.figures[1].setLayer(Canvas.LAYER_GUMS);
   }
 
   /**
-   * place une gomme sur la case
-   * @param Circle c objet formant une gomme
+   * place une gomme sur la case, la gomme precedente est effacee
+   * @param Circle c objet formant une gomme, null pour enlever la gomme
    */
   public void setGomme (Circle c) {
+    if (this.figures[1] != null) {
+      this.figures[1].erase();
+    }
     this.figures[1] = c;
   }
 
@@ -67,7 +70,7 @@ public class Gomme extends Figure {
 
   /**
    * dessine l'objet case Gomme
-   * Square (fond)
+   * Tile (fond)
    * Circle (gomme si exist)
    */
   public void draw () {
@@ -5,8 +5,8 @@ public class MapGenerate {
   /** Tableau à deux dimension de figure contenant toute les figures de la map case par case */
   private Figure[][] theMap;
 
-  public MapGenerate (int length) {
-    this.theMap = new Figure[length][length];
+  public MapGenerate (int rows, int columns) {
+    this.theMap = new Figure[rows][columns];
   }
 
   public void setFigure (int i, int j, Figure f) {
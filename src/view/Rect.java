@@ -42,7 +42,7 @@ public class Rect extends Figure
     {
         Canvas canvas = Canvas.getCanvas();
         if(this.isVisible())
-        	canvas.draw(this, getColor(), new Rectangle(getX(), getY(), getWidth(), getHeight()));
+        	canvas.draw(this, getColor(), new Rectangle(getX(), getY(), getWidth(), getHeight()), getLayer());
     }
 
 
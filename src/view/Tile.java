@@ -0,0 +1,30 @@
+package view;
+import java.awt.*;
+
+/**
+ * Une case fixe du décor (mur ou couloir) : elle ne bouge jamais, elle est
+ * donc dessinée une seule fois par niveau dans le fond de la Canvas au lieu
+ * d'être redessinée à chaque image avec les autres figures
+ */
+public class Tile extends Square {
+
+  /**
+   * constructeur d'une case du décor
+   * @param  int    size          la taille de la case
+   * @param  int    x             position absolue x
+   * @param  int    y             position absolue y
+   * @param  String color         couleur de la case
+   */
+  public Tile (int size, int x, int y, String color) {
+    super(size, x, y, color);
+  }
+
+  /**
+   * dessine la case dans le fond de la Canvas
+   */
+  protected void draw () {
+    Canvas canvas = Canvas.getCanvas();
+    canvas.drawBackground(getColor(), new Rectangle(getX(), getY(), getWidth(), getHeight()));
+  }
+
+}
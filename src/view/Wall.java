@@ -2,9 +2,10 @@ package view;
 
 /**
  * Class pour la creation d'un mur pour le jeu pacman
- * devant empecher toutes Entite de la traverser
+ * devant empecher toutes Entite de la traverser,
+ * dessine dans le fond de la Canvas comme toute Tile
  */
-public class Wall extends Square {
+public class Wall extends Tile {
 
   /**
    * constructeur de mur